@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * BenchmarkMain.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the usual JMH command line options and
+ * adds the GC profiler unless other profilers are given so that the results always
+ * come with allocation rates.
+ */
+public class BenchmarkMain {
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+
+		if(cmd.shouldHelp()) {
+			cmd.showHelp();
+			return;
+		}
+
+		ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmd);
+
+		if(cmd.getProfilers().isEmpty())
+			builder.addProfiler(GCProfiler.class);
+
+		Runner runner = new Runner(builder.build());
+
+		if(cmd.shouldList()) {
+			runner.list();
+			return;
+		}
+
+		runner.run();
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * BlendBenchmark.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Expansion of a full screen frame of color indices to ARGB and blending into the canvas,
+ * the scalar {@link RowBlender} versus the Vector API one. The vector variant needs
+ * JDK 17 or later and {@code -jvmArgsAppend --add-modules=jdk.incubator.vector}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlendBenchmark {
+	@Param({"1280x720", "1920x1080"})
+	public String size;
+
+	/** Percentage of transparent pixels */
+	@Param({"0", "50"})
+	public int transparent;
+
+	@Param({"scalar", "vector"})
+	public String blender;
+
+	private RowBlender rowBlender;
+	private int width;
+	private int height;
+	private int[] lut;
+	private byte[] indices;
+	private int[] canvas;
+
+	@Setup
+	public void setup() {
+		if(blender.equals("vector")) {
+			if(!RowBlender.isVectorized())
+				throw new IllegalStateException("Vector API not available, run on JDK 17+ with --add-modules=jdk.incubator.vector");
+			rowBlender = RowBlender.create();
+		} else
+			rowBlender = new RowBlender();
+
+		int[] dimension = ReadBenchmark.parseSize(size);
+		width = dimension[0];
+		height = dimension[1];
+		int[] colors = new int[256];
+		Random random = new Random(42);
+		for(int i = 0; i < colors.length; i++)
+			colors[i] = random.nextInt();
+		lut = Palette.of(colors).getLookupTable(0);
+		indices = new byte[width*height];
+		for(int i = 0; i < indices.length; i++)
+			indices[i] = (random.nextInt(100) < transparent)? 0 : (byte)(1 + random.nextInt(255));
+		canvas = new int[width*height];
+	}
+
+	@Benchmark
+	public int[] blend() {
+		for(int row = 0, offset = 0; row < height; row++, offset += width)
+			rowBlender.blend(lut, indices, offset, canvas, offset, width);
+		return canvas;
+	}
+}
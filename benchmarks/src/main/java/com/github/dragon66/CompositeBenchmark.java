@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * CompositeBenchmark.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading all the frames with {@link AnimatedGIFReader#getFrameAsBufferedImage(GIFSource)}
+ * versus the compositing {@link AnimatedGIFReader#getFrameAsBufferedImageEx(GIFSource)}.
+ * The difference is the cost of compositing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompositeBenchmark {
+	@Param({"320x240", "1280x720"})
+	public String size;
+
+	@Param({"1", "2", "3"})
+	public int disposal;
+
+	private byte[] gif;
+
+	@Setup
+	public void setup() {
+		int[] dimension = ReadBenchmark.parseSize(size);
+		gif = GIFCorpus.generate(dimension[0], dimension[1], 20, false, true, disposal);
+	}
+
+	@Benchmark
+	public void getFrameAsBufferedImage(Blackhole bh) throws Exception {
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		GIFSource is = GIFSource.wrap(gif);
+		BufferedImage bi = null;
+		while((bi = reader.getFrameAsBufferedImage(is)) != null)
+			bh.consume(bi);
+	}
+
+	@Benchmark
+	public void getFrameAsBufferedImageEx(Blackhole bh) throws Exception {
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		GIFSource is = GIFSource.wrap(gif);
+		BufferedImage bi = null;
+		while((bi = reader.getFrameAsBufferedImageEx(is)) != null)
+			bh.consume(bi);
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * FrameDecodeBenchmark.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Frame decoding with {@link AnimatedGIFReader#decodeLZW(GIFSource, int, int)} versus
+ * {@link AnimatedGIFReader#decodeLZWInterLaced(GIFSource, int, int)} on the same content.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FrameDecodeBenchmark {
+	@Param({"320x240", "1920x1080"})
+	public String size;
+
+	private int width;
+	private int height;
+	private byte[] gif;
+	private byte[] interlacedGif;
+	private long dataOffset;
+	private long interlacedDataOffset;
+
+	@Setup
+	public void setup() throws Exception {
+		int[] dimension = ReadBenchmark.parseSize(size);
+		width = dimension[0];
+		height = dimension[1];
+		gif = GIFCorpus.generate(width, height, 1, false, true, 0);
+		interlacedGif = GIFCorpus.generate(width, height, 1, true, true, 0);
+		dataOffset = GIFIndex.build(GIFSource.wrap(gif)).getEntry(0).getDataOffset();
+		interlacedDataOffset = GIFIndex.build(GIFSource.wrap(interlacedGif)).getEntry(0).getDataOffset();
+	}
+
+	@Benchmark
+	public byte[] decodeLZW() throws Exception {
+		GIFSource is = GIFSource.wrap(gif);
+		is.seek(dataOffset);
+		return AnimatedGIFReader.decodeLZW(is, width, height);
+	}
+
+	@Benchmark
+	public byte[] decodeLZWInterLaced() throws Exception {
+		GIFSource is = GIFSource.wrap(interlacedGif);
+		is.seek(interlacedDataOffset);
+		return AnimatedGIFReader.decodeLZWInterLaced(is, width, height);
+	}
+}
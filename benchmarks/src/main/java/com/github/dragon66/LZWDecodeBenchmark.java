@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * LZWDecodeBenchmark.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Raw LZW decoding speed of {@link LZWTreeDecoder#decode(byte[], int, int)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LZWDecodeBenchmark {
+	@Param({"320x240", "1920x1080"})
+	public String size;
+
+	private byte[] gif;
+	private long dataOffset;
+	private byte[] pixels;
+
+	@Setup
+	public void setup() throws Exception {
+		int[] dimension = ReadBenchmark.parseSize(size);
+		gif = GIFCorpus.generate(dimension[0], dimension[1], 1, false, true, 0);
+		dataOffset = GIFIndex.build(GIFSource.wrap(gif)).getEntry(0).getDataOffset();
+		pixels = new byte[dimension[0]*dimension[1]];
+	}
+
+	@Benchmark
+	public byte[] decode() throws Exception {
+		GIFSource is = GIFSource.wrap(gif);
+		is.seek(dataOffset);
+		LZWTreeDecoder decoder = new LZWTreeDecoder(is, is.read());
+		decoder.decode(pixels, 0, pixels.length);
+		return pixels;
+	}
+}
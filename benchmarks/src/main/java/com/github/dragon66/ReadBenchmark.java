@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * ReadBenchmark.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full {@link AnimatedGIFReader#read(java.io.InputStream)} runs and metadata only
+ * {@link GIFMetadata#probe(java.io.InputStream)} runs over generated GIFs of different
+ * sizes, frame counts, interlacing, palette types and disposal methods.
+ * Narrow the corpus down with JMH's -p option, e.g. -p size=500x500 -p disposal=3.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadBenchmark {
+	@Param({"100x100", "500x500"})
+	public String size;
+
+	@Param({"10", "50"})
+	public int frames;
+
+	@Param({"false", "true"})
+	public boolean interlaced;
+
+	@Param({"global", "local"})
+	public String palette;
+
+	@Param({"1", "2", "3"})
+	public int disposal;
+
+	private byte[] gif;
+
+	@Setup
+	public void setup() {
+		int[] dimension = parseSize(size);
+		gif = GIFCorpus.generate(dimension[0], dimension[1], frames, interlaced, palette.equals("global"), disposal);
+	}
+
+	@Benchmark
+	public BufferedImage read() throws Exception {
+		return new AnimatedGIFReader().read(new ByteArrayInputStream(gif));
+	}
+
+	@Benchmark
+	public GIFMetadata probe() throws Exception {
+		return GIFMetadata.probe(new ByteArrayInputStream(gif));
+	}
+
+	static int[] parseSize(String size) {
+		int x = size.indexOf('x');
+		return new int[] {Integer.parseInt(size.substring(0, x)), Integer.parseInt(size.substring(x + 1))};
+	}
+}
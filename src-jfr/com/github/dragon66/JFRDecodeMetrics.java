@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * JFRDecodeMetrics.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Reports the decoding statistics as JDK Flight Recorder events.
+ * <p>
+ * The events are named com.github.dragon66.GIFHeader, com.github.dragon66.GIFFrame and
+ * com.github.dragon66.GIFProbe and are only created while a recording has them enabled.
+ * This class needs the jdk.jfr module, it is compiled from src-jfr on JDK 11 or later
+ * and loaded reflectively by {@link DecodeMetrics#jfr()}:
+ * <pre>
+ * {@code
+ * DecodeMetrics metrics = DecodeMetrics.jfr();
+ * if(metrics != null) reader.setDecodeMetrics(metrics);
+ * }
+ * </pre>
+ */
+public class JFRDecodeMetrics implements DecodeMetrics {
+	private static final HeaderEvent HEADER = new HeaderEvent();
+	private static final FrameEvent FRAME = new FrameEvent();
+	private static final ProbeEvent PROBE = new ProbeEvent();
+
+	public void headerRead(long nanos) {
+		if(!HEADER.isEnabled()) return;
+		HeaderEvent event = new HeaderEvent();
+		event.nanos = nanos;
+		event.commit();
+	}
+
+	public void frameRead(FrameStats stats) {
+		if(!FRAME.isEnabled()) return;
+		FrameEvent event = new FrameEvent();
+		event.frameIndex = stats.getFrameIndex();
+		event.width = stats.getWidth();
+		event.height = stats.getHeight();
+		event.interlaced = stats.isInterlaced();
+		event.disposalMethod = stats.getDisposalMethod();
+		event.decodeNanos = stats.getDecodeNanos();
+		event.compositeNanos = stats.getCompositeNanos();
+		event.compressedBytes = stats.getCompressedBytes();
+		event.decompressedBytes = stats.getDecompressedBytes();
+		event.codeCount = stats.getCodeCount();
+		event.clearCodeCount = stats.getClearCodeCount();
+		event.tableFullCount = stats.getTableFullCount();
+		event.allocatedBytes = stats.getAllocatedBytes();
+		event.commit();
+	}
+
+	public void probed(long nanos, long bytes, int frameCount) {
+		if(!PROBE.isEnabled()) return;
+		ProbeEvent event = new ProbeEvent();
+		event.nanos = nanos;
+		event.bytes = bytes;
+		event.frameCount = frameCount;
+		event.commit();
+	}
+
+	@Name("com.github.dragon66.GIFHeader")
+	@Label("GIF Header")
+	@Category("GIF")
+	@StackTrace(false)
+	static class HeaderEvent extends Event {
+		@Label("Read Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long nanos;
+	}
+
+	@Name("com.github.dragon66.GIFFrame")
+	@Label("GIF Frame")
+	@Description("Decoding of a GIF frame")
+	@Category("GIF")
+	@StackTrace(false)
+	static class FrameEvent extends Event {
+		@Label("Frame Index")
+		int frameIndex;
+		@Label("Width")
+		int width;
+		@Label("Height")
+		int height;
+		@Label("Interlaced")
+		boolean interlaced;
+		@Label("Disposal Method")
+		int disposalMethod;
+		@Label("Decode Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long decodeNanos;
+		@Label("Composite Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long compositeNanos;
+		@Label("Compressed Bytes")
+		@DataAmount
+		long compressedBytes;
+		@Label("Decompressed Bytes")
+		@DataAmount
+		long decompressedBytes;
+		@Label("LZW Codes")
+		int codeCount;
+		@Label("LZW Clear Codes")
+		int clearCodeCount;
+		@Label("LZW Table Full")
+		int tableFullCount;
+		@Label("Allocated")
+		@DataAmount
+		long allocatedBytes;
+	}
+
+	@Name("com.github.dragon66.GIFProbe")
+	@Label("GIF Probe")
+	@Category("GIF")
+	@StackTrace(false)
+	static class ProbeEvent extends Event {
+		@Label("Probe Time")
+		@Timespan(Timespan.NANOSECONDS)
+		long nanos;
+		@Label("Bytes Read")
+		@DataAmount
+		long bytes;
+		@Label("Frame Count")
+		int frameCount;
+	}
+}
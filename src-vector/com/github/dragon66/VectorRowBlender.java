@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * VectorRowBlender.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link RowBlender} on the incubating Vector API.
+ * <p>
+ * A vector worth of indices is loaded as bytes and widened to ints, the ARGB values are
+ * gathered from the lookup table and blended into the canvas pixels under the mask of
+ * the non zero ones. Blending and storing the whole vector is faster than a masked
+ * store on the hardware tried, and the gather is faster than looking the ARGB values up
+ * one by one even with the round trip through the index map, see
+ * benchmarks/results/BlendBenchmark.txt.
+ * <p>
+ * Only compiled on JDK 17 or later, see the vector profile of the pom, and only loaded
+ * through {@link RowBlender#create()}.
+ */
+final class VectorRowBlender extends RowBlender {
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+	// Same number of lanes as INTS
+	private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.length()*8));
+
+	// Widened indices of the current vector, the gather takes its index map from an array
+	private final int[] map = new int[INTS.length()];
+
+	VectorRowBlender() {}
+
+	@Override
+	void blend(int[] lut, byte[] indices, int src, int[] target, int dst, int length) {
+		final int lanes = INTS.length();
+		int upper = INTS.loopBound(length);
+		int i = 0;
+
+		for(; i < upper; i += lanes) {
+			ByteVector bytes = ByteVector.fromArray(BYTES, indices, src + i);
+			((IntVector)bytes.convertShape(VectorOperators.B2I, INTS, 0)).and(0xff).intoArray(map, 0);
+			IntVector argb = IntVector.fromArray(INTS, lut, 0, map, 0);
+			VectorMask<Integer> opaque = argb.compare(VectorOperators.NE, 0);
+			IntVector.fromArray(INTS, target, dst + i).blend(argb, opaque).intoArray(target, dst + i);
+		}
+
+		super.blend(lut, indices, src + i, target, dst + i, length - i); // Tail
+	}
+}
@@ -13,25 +13,25 @@
  *
  * Who   Date       Description
  * ====  =========  =================================================
+ * AG    16Oct2026  Decode limits, metrics and progressive previews
+ * AG    16Oct2026  Composite on ARGB int buffers, pooled scratch buffers
+ * AG    16Oct2026  Read from GIFSource, index based frame access
  * WY    20Nov2015  Initial creation
  */
 
 package com.github.dragon66;
 
-import java.awt.AlphaComposite;
 import java.awt.Color;
-import java.awt.Composite;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
-import java.awt.image.IndexColorModel;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
-import java.io.*;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -44,12 +44,27 @@ import java.util.List;
  * could be used to decode TIFF image as well.
  */
 public class AnimatedGIFReader {
+	/** Every frame gets its own image, the default */
+	public static final int DUPLICATE_FRAMES_KEEP = 0;
+	/** Frames looking the same as the previous one share its image */
+	public static final int DUPLICATE_FRAMES_SHARE = 1;
+	/** Frames looking the same as the previous one are merged into it, adding up the delays */
+	public static final int DUPLICATE_FRAMES_MERGE = 2;
+	
+	// Returned by readFrame when the image data is the same as the previous frame's
+	private static final byte[] REPEATED_FRAME = new byte[0];
+	
+	// Interlaced row order
+	static final int[] PASS_START = {0, 4, 2, 1};
+	static final int[] PASS_STEP = {8, 8, 4, 2};
+	
 	// Global fields
-	private GifHeader gifHeader;
+	private GIFIndex header;
 	private int logicalScreenWidth;
 	private int logicalScreenHeight;
 	private Color backgroundColor = new Color(255, 255, 255);
-	private int[] globalColorPalette;
+	private Palette globalColorPalette;
+	private int globalBitsPerPixel;
 	// Graphic control extension specific fields
 	protected int disposalMethod = GIFFrame.DISPOSAL_UNSPECIFIED;
 	protected int userInputFlag = GIFFrame.USER_INPUT_NONE;
@@ -62,63 +77,182 @@ public class AnimatedGIFReader {
 	protected int image_y;
 	private int width;
 	private int height;
+	private boolean interlaced;
 	private int bitsPerPixel;
-	private int rgbColorPalette[];
+	private Palette rgbColorPalette;
+	private int localColorPalette[]; // Reused to read the local color tables
 
 	// To keep track of all the frames
 	private List<GIFFrame> gifFrames;
 	private List<BufferedImage> frames;
 	
-	// BufferedImage with the width and height of the logical screen to draw frames upon
-	private BufferedImage baseImage;
+	// Composites frames upon a canvas with the width and height of the logical screen
+	private FrameCompositor compositor;
+	
+	// InputStream adapter
+	private InputStream sourceStream;
+	private GIFSource streamSource;
+	
+	private ProgressListener progressListener;
+	
+	// Instrumentation
+	private DecodeMetrics metrics;
+	private FrameStats frameStats; // Statistics of the frame being read if there are metrics
+	private int frameIndex; // Number of frames read so far
+	
+	// Duplicate frame detection
+	private int duplicateFrames = DUPLICATE_FRAMES_KEEP;
+	private BufferedImage lastImage; // Composited image of the previous frame
+	private GIFIndex.Entry lastEntry;
+	private Palette lastPalette;
+	private long lastDataOffset;
+	private int lastDataLength;
 	
-	private byte[] decodeLZW(InputStream is) throws Exception {
+	// Resource guardrails
+	private DecodeLimits limits;
+	private DecodeLimits.Usage usage = new DecodeLimits.Usage(null); // Of the current image
+	private DecodeLimitException limitViolation; // Violation which stopped the last read
+	
+	static byte[] decodeLZW(GIFSource is, int width, int height) throws Exception {
 		int dimension = width*height;		
 		byte[] temp_ = new byte[dimension];
 
 		int min_code_size = is.read();// The length of the root
-		LZWTreeDecoder decoder = new LZWTreeDecoder(is, min_code_size);
-		decoder.decode(temp_, 0, dimension);
+		BufferPool pool = BufferPool.get();
+		LZWTreeDecoder decoder = pool.takeDecoder(is, min_code_size);
+		try {
+			decoder.decode(temp_, 0, dimension);
+			decoder.skipToEnd();
+		} finally {
+			pool.release(decoder);
+		}
 		
 		return temp_;
 	}
    
-	private byte[] decodeLZWInterLaced(InputStream is) throws Exception	{
-		int index = 0;
-		int index2 = 0;
-		int passParam[] = {0,8,4,8,2,4,1,2};
-		int passStart[] = {0,width*passParam[2],width*passParam[4],width*passParam[6]};
-		int passInc[]   = {width*passParam[1],width*passParam[3],width*passParam[5],width*passParam[7]};
-		int passHeight[]= {((height-1)>>3)+1,((height+3)>>3),((height+1)>>2),((height)>>1)}; 
-
-		/////////////////////////////////////
+	// Decodes the color indices of a frame into dest row by row from top to bottom. The rows of
+	// interlaced frames are written to their final place as they come. Pixels missing from
+	// truncated image data are set to 0.
+	static void decodeLZW(GIFSource is, int width, int height, boolean interlaced, byte[] dest, int offset) throws Exception {
+		decodeLZW(is, width, height, interlaced, dest, offset, null);
+	}
+	
+	// Same as above recording the LZW statistics into stats if not null
+	static void decodeLZW(GIFSource is, int width, int height, boolean interlaced, byte[] dest, int offset, FrameStats stats) throws Exception {
 		int min_code_size = is.read();// The length of the root
-
-		int dimension = width*height;
-		byte[] buf = new byte[dimension];
-		byte[] temp_ = new byte[dimension];
-
-		LZWTreeDecoder decoder = new LZWTreeDecoder(is, min_code_size);
-		decoder.decode(buf, 0, dimension);
-   
-		for (int pass=1;pass<5;pass++)
-		{
-			// pass 1: start at row 0, scan every 8 rows
-			// pass 2: start at row 4, scan every 8 rows
-			// pass 3: start at row 2, scan every 4 rows
-			// pass 4: start at row 1, scan every 2 rows
-			index = passStart[pass-1];
-			int inc = (passInc[pass-1]-width);
-			for(int row=0;row<passHeight[pass-1];row++,index+=inc)
-			{
-				for(int col=0;col<width;col++,index++,index2++)
-				{
-					temp_[index] = buf[index2];
-				}
+		BufferPool pool = BufferPool.get();
+		LZWTreeDecoder decoder = pool.takeDecoder(is, min_code_size);
+		try {
+			decodeLZW(decoder, width, height, interlaced, dest, offset);
+			decoder.skipToEnd();
+			if(stats != null) stats.recordDecoder(decoder);
+		} finally {
+			pool.release(decoder);
+		}
+	}
+	
+	private static void decodeLZW(LZWTreeDecoder decoder, int width, int height, boolean interlaced, byte[] dest, int offset) throws Exception {
+		if(!interlaced) {
+			int dimension = width*height;
+			int count = decoder.decode(dest, offset, dimension);
+			Arrays.fill(dest, offset + count, offset + dimension, (byte)0);
+		} else {
+			boolean truncated = false;
+			for(int pass = 0; pass < 4; pass++)
+				truncated = decodePass(decoder, width, height, pass, truncated, dest, offset);
+		}
+	}
+	
+	// Decodes the rows of one interlace pass into their final place. Rows of truncated image
+	// data are set to 0. Returns true if the image data turns out to be truncated.
+	private static boolean decodePass(LZWTreeDecoder decoder, int width, int height, int pass, boolean truncated, byte[] dest, int offset) throws Exception {
+		for(int row = PASS_START[pass]; row < height; row += PASS_STEP[pass]) {
+			int start = offset + row*width;
+			int count = truncated? 0 : decoder.decode(dest, start, width);
+			if(count < width) {
+				Arrays.fill(dest, start + count, start + width, (byte)0);
+				truncated = true;
 			}
 		}
+		return truncated;
+	}
 	
-		return temp_;
+	// Decodes an interlaced frame pass by pass and hands a preview over to the progress
+	// listener after each of the first 3 passes
+	private void decodeProgressive(GIFSource is, byte[] pixels, boolean composite) throws Exception {
+		int min_code_size = is.read();// The length of the root
+		BufferPool pool = BufferPool.get();
+		LZWTreeDecoder decoder = pool.takeDecoder(is, min_code_size);
+		try {
+			boolean truncated = false;
+			for(int pass = 0; pass < 4; pass++) {
+				truncated = decodePass(decoder, width, height, pass, truncated, pixels, 0);
+				if(pass < 3)
+					progressListener.onPass(pass + 1, createPreview(pixels, PASS_STEP[pass + 1], composite));
+			}
+			decoder.skipToEnd();
+			if(frameStats != null) frameStats.recordDecoder(decoder);
+		} finally {
+			pool.release(decoder);
+		}
+	}
+	
+	// Creates a preview of the current frame with every step-th row decoded
+	private BufferedImage createPreview(byte[] pixels, int step, boolean composite) throws DecodeLimitException {
+		if(!composite) {
+			byte[] preview = new byte[width*height];
+			replicateRows(pixels, preview, width, height, step);
+			return createIndexedImage(preview, width, height, bitsPerPixel, rgbColorPalette, transparent_color);
+		}
+		BufferPool pool = BufferPool.get();
+		byte[] preview = pool.takeBytes(width*height);
+		replicateRows(pixels, preview, width, height, step);
+		BufferedImage image = compositor().preview(preview, image_x, image_y, width, height, rgbColorPalette, transparent_color);
+		pool.release(preview);
+		return image;
+	}
+	
+	// Fills each row with the nearest of the decoded rows, one out of step of them
+	static void replicateRows(byte[] src, byte[] dest, int width, int height, int step) {
+		for(int row = 0; row < height; row++) {
+			int nearest = (row + (step>>1) - 1)/step*step;
+			if(nearest >= height) nearest = row/step*step;
+			System.arraycopy(src, nearest*width, dest, row*width, width);
+		}
+	}
+	
+	// Decodes an interlaced frame with the rows going straight to their final place as
+	// they come out of the LZW decoder, so there is only one buffer and one pass.
+	static byte[] decodeLZWInterLaced(GIFSource is, int width, int height) throws Exception	{
+		byte[] buf = new byte[width*height];
+		decodeLZW(is, width, height, true, buf, 0);
+		
+		return buf;
+	}
+	
+	/**
+	 * Maps the rows of an interlaced frame from the order they are stored in to their
+	 * place in the frame:
+	 * <p>
+	 * pass 1: start at row 0, every 8 rows<br>
+	 * pass 2: start at row 4, every 8 rows<br>
+	 * pass 3: start at row 2, every 4 rows<br>
+	 * pass 4: start at row 1, every 2 rows
+	 * 
+	 * @param i index of the row in the image data
+	 * @param height frame height
+	 * @return the row of the frame
+	 */
+	static int interlacedRow(int i, int height) {
+		int passHeight = (height + 7)>>3;
+		if(i < passHeight) return i<<3;
+		i -= passHeight;
+		passHeight = (height + 3)>>3;
+		if(i < passHeight) return (i<<3) + 4;
+		i -= passHeight;
+		passHeight = (height + 1)>>2;
+		if(i < passHeight) return (i<<2) + 2;
+		return ((i - passHeight)<<1) + 1;
 	}
    
 	public Color getBackgroundColor() {
@@ -134,6 +268,9 @@ public class AnimatedGIFReader {
 	 * Note: do not mix this method with {@link #read(InputStream) read} 
 	 *       or {@link #getFrameAsBufferedImageEx(InputStream) getFrameAsBufferedImageEx}.
 	 *       Use them separately.
+	 * <p>
+	 * For interlaced frames, the {@link #setProgressListener(ProgressListener) progress listener}
+	 * gets frame size previews.
 	 * <p> One way to use this method to retrieve all the frames from an animated GIF:
 	 * <pre>
 	 * {@code
@@ -151,14 +288,37 @@ public class AnimatedGIFReader {
 	 * @throws Exception
 	 */
 	protected BufferedImage getFrameAsBufferedImage(InputStream is) throws Exception {
-		// Read frame into a byte array
-		byte[] pixels = readFrame(is);
+		return getFrameAsBufferedImage(source(is));
+	}
+	
+	/**
+	 * Same as {@link #getFrameAsBufferedImage(InputStream) getFrameAsBufferedImage} but reads
+	 * from a {@link GIFSource}.
+	 * 
+	 * @param is GIFSource for the GIF/Animated GIF
+	 * @return a BufferedImage for the image or current frame in case of animated GIF
+	 * @throws Exception
+	 */
+	protected BufferedImage getFrameAsBufferedImage(GIFSource is) throws Exception {
+		// Read frame into a byte array, the image keeps it so it can't be pooled
+		byte[] pixels = readFrame(is, false);
 		if(pixels == null) return null;
 		//Create a BufferedImage
+		BufferedImage image = createIndexedImage(pixels, width, height, bitsPerPixel, rgbColorPalette, transparent_color);
+		if(progressListener != null && interlaced)
+			progressListener.onPass(4, image);
+		if(frameStats != null) frameRead(0);
+		
+		return image;
+	}
+	
+	// Wraps the color indices of a frame into a BufferedImage with an IndexColorModel
+	static BufferedImage createIndexedImage(byte[] pixels, int width, int height, int bitsPerPixel, Palette colorPalette, int transparentIndex) {
 		int[] off = {0};//band offset, we have only one band start at 0
 		DataBuffer db = new DataBufferByte(pixels, pixels.length);
 		WritableRaster raster = Raster.createInterleavedRaster(db, width, height, width, 1, off, null);
-		ColorModel cm = new IndexColorModel(bitsPerPixel, rgbColorPalette.length, rgbColorPalette, 0, false, transparent_color, DataBuffer.TYPE_BYTE);
+		// The color model is shared by all the frames with the same palette and transparent index
+		ColorModel cm = colorPalette.getColorModel(bitsPerPixel, transparentIndex);
    	
 		return new BufferedImage(cm, raster, false, null);
 	}
@@ -176,51 +336,121 @@ public class AnimatedGIFReader {
 	 * Note: do not mix this method with {@link #read(InputStream) read} 
 	 *       or {@link #getFrameAsBufferedImage(InputStream) getFrameAsBufferedImage}.
 	 *       Use them separately.
+	 * <p>
+	 * For interlaced frames, the {@link #setProgressListener(ProgressListener) progress listener}
+	 * gets composited previews.
+	 * <p>
+	 * Unless duplicate frames are {@link #DUPLICATE_FRAMES_KEEP kept}, the image returned
+	 * for a frame looking the same as the previous one is the previous image.
 	 *  
 	 * @param is input stream for the image - single frame or multiple frame animated GIF
 	 * @return java BufferedImage or null if there is no more frames
 	 * @throws Exception
 	 */
 	protected BufferedImage getFrameAsBufferedImageEx(InputStream is) throws Exception {
+		return getFrameAsBufferedImageEx(source(is));
+	}
+	
+	/**
+	 * Same as {@link #getFrameAsBufferedImageEx(InputStream) getFrameAsBufferedImageEx} but reads
+	 * from a {@link GIFSource}.
+	 * 
+	 * @param is GIFSource for the image - single frame or multiple frame animated GIF
+	 * @return java BufferedImage or null if there is no more frames
+	 * @throws Exception
+	 */
+	protected BufferedImage getFrameAsBufferedImageEx(GIFSource is) throws Exception {
 		// This single call will trigger the reading of the global scope data
-		BufferedImage bi = getFrameAsBufferedImage(is);
-		if(bi == null) return null;
-		int maxWidth = (width < logicalScreenWidth)? width:logicalScreenWidth;
-		int maxHeight = (height < logicalScreenHeight)? height:logicalScreenHeight;
-		if(baseImage == null)
-			baseImage = new BufferedImage(logicalScreenWidth, logicalScreenHeight, BufferedImage.TYPE_INT_ARGB);
-		Rectangle area = new Rectangle(image_x, image_y, maxWidth, maxHeight);
-		// Create a backup bufferedImage from the base image for the area of the current frame
-		BufferedImage backup = new BufferedImage(maxWidth, maxHeight, BufferedImage.TYPE_INT_ARGB);
-		backup.setData(baseImage.getData(area));
-		/* End of backup */
-		Graphics2D g = baseImage.createGraphics();
+		byte[] pixels = readFrame(is, true);
+		if(pixels == null) return null;
+		long start = (frameStats != null)? System.nanoTime() : 0;
+		FrameCompositor compositor = compositor();
 		// Draw this frame to the base
-		g.drawImage(bi, image_x, image_y, null);
+		if(pixels == REPEATED_FRAME)
+			compositor.redrawFrame(image_x, image_y, width, height, disposalMethod);
+		else {
+			compositor.drawFrame(pixels, image_x, image_y, width, height, rgbColorPalette, transparent_color, disposalMethod);
+			BufferPool.get().release(pixels);
+		}
 		// We need to clone the base image since we are going to dispose it later according to the disposal method
-		BufferedImage clone = new BufferedImage(logicalScreenWidth, logicalScreenHeight, BufferedImage.TYPE_INT_ARGB);
-		clone.setData(baseImage.getData());
-		// Check about disposal method to take action accordingly
-		if(disposalMethod == 1 || disposalMethod == 0) // Leave in place or unspecified
-			; // No action needed
-		else if(disposalMethod == 2) { // Restore to background
-			Composite oldComposite = g.getComposite();
-			g.setComposite(AlphaComposite.Clear);
-			g.fillRect(image_x, image_y, width, height);
-			g.setComposite(oldComposite);
-		} else if(disposalMethod == 3) { // Restore to previous
-			Composite oldComposite = g.getComposite();
-			g.setComposite(AlphaComposite.Src);
-			g.drawImage(backup, image_x, image_y, null);
-			g.setComposite(oldComposite);
-		} else { // To be defined - should never come here
-			baseImage = new BufferedImage(logicalScreenWidth, logicalScreenHeight, BufferedImage.TYPE_INT_ARGB);
-			g = baseImage.createGraphics();
-		}	
+		BufferedImage clone = null;
+		if(duplicateFrames != DUPLICATE_FRAMES_KEEP && compositor.sameAs(lastImage))
+			clone = lastImage; // Share the previous image since the canvas looks the same
+		else {
+			usage.decoded(4L*logicalScreenWidth*logicalScreenHeight);
+			clone = compositor.snapshot();
+			if(duplicateFrames != DUPLICATE_FRAMES_KEEP)
+				lastImage = clone;
+		}
+		// Take action according to the disposal method
+		compositor.dispose();
+		if(frameStats != null) frameRead(System.nanoTime() - start);
+		if(progressListener != null && interlaced)
+			progressListener.onPass(4, clone);
 		
 		return clone;
 	}
 	
+	/**
+	 * Gets the change of the logical screen brought about by the current frame. Deltas are
+	 * cheaper than the full logical screen frames returned by
+	 * {@link #getFrameAsBufferedImageEx(InputStream) getFrameAsBufferedImageEx} since the
+	 * canvas is neither cloned nor handed over, only the changed rectangle is.
+	 * <p>
+	 * Note: do not mix this method with the other frame reading methods, use it separately.
+	 * 
+	 * @param is input stream for the image - single frame or multiple frame animated GIF
+	 * @return the change from the previous composited frame or null if there is no more frames
+	 * @throws Exception
+	 */
+	protected FrameDelta getFrameDelta(InputStream is) throws Exception {
+		return getFrameDelta(source(is));
+	}
+	
+	/**
+	 * Same as {@link #getFrameDelta(InputStream) getFrameDelta} but reads from a {@link GIFSource}.
+	 */
+	protected FrameDelta getFrameDelta(GIFSource is) throws Exception {
+		byte[] pixels = readFrame(is, true);
+		if(pixels == null) return null;
+		long start = (frameStats != null)? System.nanoTime() : 0;
+		FrameCompositor compositor = compositor();
+		if(pixels == REPEATED_FRAME)
+			compositor.redrawFrame(image_x, image_y, width, height, disposalMethod);
+		else {
+			compositor.drawFrame(pixels, image_x, image_y, width, height, rgbColorPalette, transparent_color, disposalMethod);
+			BufferPool.get().release(pixels);
+		}
+		// Changes from the disposal of the previous frame and the drawing of this one
+		Rectangle bounds = new Rectangle();
+		int[] changed = compositor.diff(bounds);
+		compositor.dispose();
+		if(frameStats != null) frameRead(System.nanoTime() - start);
+		
+		return new FrameDelta(bounds.x, bounds.y, bounds.width, bounds.height, changed, delay);
+	}
+	
+	// Completes the statistics of the frame just read and hands them over to the metrics
+	private void frameRead(long compositeNanos) {
+		FrameStats stats = frameStats;
+		frameStats = null;
+		stats.compositeNanos = compositeNanos;
+		if(stats.allocatedBytes >= 0)
+			stats.allocatedBytes = FrameStats.allocatedBytes() - stats.allocatedBytes;
+		metrics.frameRead(stats);
+	}
+	
+	// Gets the compositor for the current logical screen size, charging its canvas
+	// before it is allocated
+	private FrameCompositor compositor() throws DecodeLimitException {
+		if(compositor == null || compositor.getCanvasWidth() != logicalScreenWidth || compositor.getCanvasHeight() != logicalScreenHeight) {
+			compositor = null;
+			usage.checkCanvas(logicalScreenWidth, logicalScreenHeight);
+			compositor = new FrameCompositor(logicalScreenWidth, logicalScreenHeight);
+		}
+		return compositor;
+	}
+	
 	/**
 	 * Get the total number of frames read by this GIFReader.
 	 *  
@@ -266,14 +496,33 @@ public class AnimatedGIFReader {
 	public int getLogicalScreenHeight() {
 		return logicalScreenHeight;
 	}
+	
+	/**
+	 * @return the limit violation which stopped the last {@link #read(InputStream) read}
+	 *         early when {@link DecodeLimits#setPartialResults(boolean) partial results}
+	 *         are enabled or null if all the frames were read
+	 */
+	public DecodeLimitException getLimitViolation() {
+		return limitViolation;
+	}
+	
+	/**
+	 * @return the loop count of the NETSCAPE2.0 application extension read so far, 0 to loop
+	 *         forever or {@link GIFMetadata#LOOP_COUNT_NONE} if there is no such extension
+	 */
+	public int getLoopCount() {
+		if(header != null)
+			return header.getLoopCount();
+		return GIFMetadata.LOOP_COUNT_NONE;
+	}
     
 	public int getLogicalScreenWidth() {
 		return logicalScreenWidth;
 	}
 	
 	public int getTransparentColor() {
-		if(transparent_color >= 0)
-			return rgbColorPalette[transparent_color]&0xffffff; // We only need RGB, no alpha
+		if(transparent_color >= 0 && transparent_color < rgbColorPalette.size())
+			return rgbColorPalette.getRGB(transparent_color)&0xffffff; // We only need RGB, no alpha
 		return GIFFrame.TRANSPARENCY_COLOR_NONE;
 	}
 	
@@ -281,160 +530,307 @@ public class AnimatedGIFReader {
 		return transparencyFlag == GIFFrame.TRANSPARENCY_INDEX_SET;
 	}
    
-	private byte[] readFrame(InputStream is) throws Exception {
+	// Reads the next frame into a pooled buffer to be composited or a new buffer otherwise
+	private byte[] readFrame(GIFSource is, boolean composite) throws Exception {
 		// One time read of global scope data
-		if(gifHeader == null) {
+		if(header == null) {
 			if(!readGlobalScopeData(is)) return null;
 		}
 		
 		resetFrameParameters();
-	   
-		int image_separator = 0;
-	
-		do {		   
-			image_separator = is.read();
-			    
-			if(image_separator == -1 || image_separator == 0x3b) { // End of stream 
-				return null;
-			}
-			    
-			if (image_separator == 0x21) // (!) Extension Block
-			{
-				int func = is.read();
-				int len = is.read();
-	
-				if (func == 0xf9) { // Graphic Control Label - identifies the current block as a Graphic Control Extension
-					int packedFields = is.read();
-					// Determine the disposal method
-					disposalMethod = ((packedFields&0x1c)>>2);
-					userInputFlag =  ((packedFields&0x02)>>1);
-					delay = IOUtils.readUnsignedShort(is);
-					// Read transparent color index
-					int transparent_color_index = is.read();
-					// Check for transparent color flag
-					if((packedFields&0x01) == 0x01){
-						transparencyFlag = GIFFrame.TRANSPARENCY_INDEX_SET;
-						transparent_color = transparent_color_index;
-					}					
-					len = is.read();// len=0, block terminator!					
-				}
-				// GIF87a specification mentions the repetition of multiple length
-				// blocks while GIF89a gives no specific description. For safety, here
-				// a while loop is used to check for block terminator!
-				while(len != 0) {
-					IOUtils.skipFully(is, len);
-					len = is.read();// len=0, block terminator!
-				} 
-			}
-		} while(image_separator != 0x2c); // ","
-	
-		byte flags2 = readImageDescriptor(is);
-		   
-		boolean hasLocalColorMap = false;
-	
-		if((flags2&0x80) == 0x80) {
-			hasLocalColorMap = true;
+		
+		FrameStats stats = null;
+		long start = 0;
+		long position = 0;
+		
+		if(metrics != null) {
+			stats = new FrameStats();
+			stats.allocatedBytes = FrameStats.allocatedBytes();
+			start = System.nanoTime();
+		}
+		
+		GIFIndex.Entry entry = GIFIndex.readEntry(is, header);
+		
+		if(entry == null) return null; // End of stream
+		
+		// Check before anything is allocated for the frame
+		int dimension = usage.checkFrame(frameIndex, entry.getWidth(), entry.getHeight());
+		
+		disposalMethod = entry.getDisposalMethod();
+		userInputFlag = entry.getUserInputFlag();
+		delay = entry.getDelay();
+		transparencyFlag = entry.getTransparencyFlag();
+		transparent_color = entry.getTransparentColor();
+		interlaced = entry.isInterlaced();
+		image_x = entry.getLeftPosition();
+		image_y = entry.getTopPosition();
+		width = entry.getWidth();
+		height = entry.getHeight();
+		
+		if(entry.hasLocalPalette()) {
 			// A local color map is present
-			bitsPerPixel = (flags2&0x07)+1;
+			bitsPerPixel = entry.getBitsPerPixel();
 			colorsUsed = (1<<bitsPerPixel);
 	
 			readLocalPalette(is, colorsUsed);
+		} else {
+			rgbColorPalette = globalColorPalette;
+			bitsPerPixel = globalBitsPerPixel;
+			colorsUsed = (1<<bitsPerPixel);
 		}
-		   
-		if(!hasLocalColorMap) rgbColorPalette = globalColorPalette;
-		   
-		if (transparencyFlag == GIFFrame.TRANSPARENCY_INDEX_SET && transparent_color < colorsUsed)
-			rgbColorPalette[transparent_color] &= 0x00ffffff;
-			
-		if((flags2&0x40) == 0x40) {
-			return decodeLZWInterLaced(is);
+		
+		if(stats != null) position = is.position();
+		
+		boolean detectDuplicates = composite && duplicateFrames != DUPLICATE_FRAMES_KEEP && is.isSeekable();
+		long dataOffset = is.position();
+		
+		if(detectDuplicates && sameAsLastFrame(is, entry)) {
+			lastEntry = entry;
+			if(stats != null) {
+				stats.decodeNanos = System.nanoTime() - start;
+				stats.frameIndex = frameIndex;
+				stats.width = width;
+				stats.height = height;
+				stats.interlaced = interlaced;
+				stats.disposalMethod = disposalMethod;
+				stats.compressedBytes = is.position() - position;
+			}
+			frameStats = stats;
+			frameIndex++;
+			return REPEATED_FRAME;
 		}
 		
-		return decodeLZW(is);
+		usage.decoded(dimension);
+		byte[] pixels = composite? BufferPool.get().takeBytes(dimension) : new byte[dimension];
+		frameStats = stats;
+		if(interlaced && progressListener != null)
+			decodeProgressive(is, pixels, composite);
+		else
+			decodeLZW(is, width, height, interlaced, pixels, 0, stats);
+		
+		if(stats != null) {
+			stats.decodeNanos = System.nanoTime() - start;
+			stats.frameIndex = frameIndex;
+			stats.width = width;
+			stats.height = height;
+			stats.interlaced = interlaced;
+			stats.disposalMethod = disposalMethod;
+			stats.compressedBytes = is.position() - position;
+			stats.decompressedBytes = dimension;
+		}
+		frameIndex++;
+		
+		if(detectDuplicates) {
+			lastEntry = entry;
+			lastDataOffset = dataOffset;
+			lastDataLength = (int)(is.position() - dataOffset);
+			lastPalette = rgbColorPalette;
+		}
+		
+		return pixels;
 	}
     
-	private void readGlobalPalette(InputStream is,int num_of_color) throws Exception {
+	// Checks whether the frame at the current position of the seekable source is the same as the
+	// previous frame drawn onto a canvas left as it was. If so, drawing it would not change the
+	// canvas and the source is positioned after its image data, otherwise the position is left as is.
+	private boolean sameAsLastFrame(GIFSource is, GIFIndex.Entry entry) throws Exception {
+		GIFIndex.Entry last = lastEntry;
+		if(last == null || last.getDisposalMethod() > GIFFrame.DISPOSAL_LEAVE_AS_IS) return false;
+		if(last.getLeftPosition() != entry.getLeftPosition() || last.getTopPosition() != entry.getTopPosition()
+				|| last.getWidth() != entry.getWidth() || last.getHeight() != entry.getHeight()
+				|| last.isInterlaced() != entry.isInterlaced() || last.getTransparentColor() != entry.getTransparentColor())
+			return false;
+		if(!rgbColorPalette.equals(lastPalette)) return false;
+		// Compare the image data byte for byte
+		long start = is.position();
+		is.read(); // LZW minimum code size
+		GIFIndex.skipSubBlocks(is);
+		int length = (int)(is.position() - start);
+		if(length == lastDataLength) {
+			GIFSource lastData = is.duplicate();
+			lastData.seek(lastDataOffset);
+			is.seek(start);
+			if(lastData.slice(length).equals(is.slice(length)))
+				return true;
+		}
+		is.seek(start);
+		return false;
+	}
+	
+	// Reads num_of_color RGB triplets into an array of opaque ARGB values
+	static int[] readColorPalette(GIFSource is, int num_of_color) throws Exception {
+		return readColorPalette(is, num_of_color, new int[num_of_color]);
+	}
+	
+	// Reads num_of_color RGB triplets into the interned palette with these colors
+	static Palette readPalette(GIFSource is, int num_of_color) throws Exception {
+		return Palette.of(readColorPalette(is, num_of_color));
+	}
+	
+	// Same as readColorPalette(GIFSource, int) but fills the array given which must be num_of_color long
+	static int[] readColorPalette(GIFSource is, int num_of_color, int[] colorPalette) throws Exception {
 		int index1 = 0;
 		int bytes2read = num_of_color*3;
-		byte brgb[] = new byte[bytes2read];  
-		IOUtils.readFully(is,brgb,0,bytes2read);
-	
-		globalColorPalette = new int[num_of_color];
+		BufferPool pool = BufferPool.get();
+		byte brgb[] = pool.takeBytes(bytes2read);
+		is.readFully(brgb,0,bytes2read);
 				
 		for(int i = 0; i < num_of_color; i++)
-			globalColorPalette[i]  = ((255<<24)|((brgb[index1++]&0xff)<<16)|((brgb[index1++]&0xff)<<8)|(brgb[index1++]&0xff));
+			colorPalette[i]  = ((255<<24)|((brgb[index1++]&0xff)<<16)|((brgb[index1++]&0xff)<<8)|(brgb[index1++]&0xff));
+		
+		pool.release(brgb);
+		
+		return colorPalette;
 	}
-    
-	private boolean readGlobalScopeData(InputStream is) throws Exception {
+	
+	private boolean readGlobalScopeData(GIFSource is) throws Exception {
+		long start = (metrics != null)? System.nanoTime() : 0;
 		// Global scope data including header, logical screen descriptor, global colorPalette if presents
-		gifHeader = new GifHeader();
-		gifHeader.readHeader(is);
+		GIFIndex header = GIFIndex.readHeader(is);
+		
+		if(header == null) return false;
+		
+		if(metrics != null) metrics.headerRead(System.nanoTime() - start);
+		
+		usage = new DecodeLimits.Usage(limits);
+		usage.checkScreen(header.getLogicalScreenWidth(), header.getLogicalScreenHeight());
+		
+		this.header = header;
 		   
-		logicalScreenWidth = gifHeader.screen_width;
-		logicalScreenHeight = gifHeader.screen_height;
-	
-		String signature = new String(gifHeader.signature) + new String(gifHeader.version);
-			
-		if ((!signature.equalsIgnoreCase("GIF87a")) && (!signature.equalsIgnoreCase("GIF89a")))	{
-			return false;
-		}
-	      
-		byte flags = gifHeader.flags;
+		logicalScreenWidth = header.getLogicalScreenWidth();
+		logicalScreenHeight = header.getLogicalScreenHeight();
+		globalColorPalette = header.globalColorPalette();
 					
-		if((flags&0x80) == 0x80) { // A global color map is present 
-			bitsPerPixel = (flags&0x07)+1;
+		if(globalColorPalette != null) { // A global color map is present 
+			globalBitsPerPixel = bitsPerPixel = header.getGlobalBitsPerPixel();
 			colorsUsed = (1<<bitsPerPixel);
-	
-			// # bits of color resolution, insignificant 
-			@SuppressWarnings("unused")
-			int bitsPerColor = ((flags&0x70)>>4)+1;
-	
-			readGlobalPalette(is, colorsUsed);
-			int bgcolor = gifHeader.bgcolor&0xff;
+			int bgcolor = header.getBackgroundColorIndex();
 			if(bgcolor < colorsUsed)
-			   backgroundColor = new Color(globalColorPalette[bgcolor]);
+			   backgroundColor = new Color(globalColorPalette.getRGB(bgcolor));
 	   	}
 		   
 	   	return true;
 	}
     
 	public BufferedImage read(InputStream is) throws Exception {
+		return read(source(is));
+	}
+	
+	public BufferedImage read(GIFSource is) throws Exception {
+		reset();
 		frames = new ArrayList<BufferedImage>();
 		gifFrames = new ArrayList<GIFFrame>();
 		BufferedImage bi = null;
-		
-		while((bi = getFrameAsBufferedImageEx(is)) != null) {
-			gifFrames.add(new GIFFrame(bi, image_x, image_y, delay, disposalMethod, userInputFlag, transparencyFlag, transparent_color));
-			frames.add(bi);			
+		BufferedImage previous = null;
+		
+		try {
+			while((bi = getFrameAsBufferedImageEx(is)) != null) {
+				if(bi == previous && duplicateFrames == DUPLICATE_FRAMES_MERGE) {
+					// Same as the previous frame, make that one last longer
+					GIFFrame merged = gifFrames.get(gifFrames.size() - 1);
+					gifFrames.set(gifFrames.size() - 1, new GIFFrame(bi, merged.getLeftPosition(), merged.getTopPosition(), merged.getDelay() + delay,
+							merged.getDisposalMethod(), merged.getUserInputFlag(), merged.getTransparencyFlag(), merged.getTransparentColor()));
+					continue;
+				}
+				gifFrames.add(new GIFFrame(bi, image_x, image_y, delay, disposalMethod, userInputFlag, transparencyFlag, transparent_color));
+				frames.add(bi);
+				previous = bi;
+			}
+		} catch(DecodeLimitException ex) {
+			if(limits == null || !limits.isPartialResults() || frames.isEmpty()) throw ex;
+			limitViolation = ex; // Keep the frames read so far
 		}
 		
 		return frames.get(0);
 	}
     
-	private byte readImageDescriptor(InputStream is) throws Exception {	 	
-		int nindex = 0;
-		byte ides[] = new byte[9];
+	private void readLocalPalette(GIFSource is,int num_of_color) throws Exception	{
+		if(localColorPalette == null || localColorPalette.length != num_of_color)
+			localColorPalette = new int[num_of_color];
+		rgbColorPalette = Palette.of(readColorPalette(is, num_of_color, localColorPalette));
+	}
 	
-		IOUtils.readFully(is,ides,0,9);
+	/**
+	 * Sets what to do with composited frames which look the same as the previous one, as
+	 * is often the case with screen recordings. Such frames are found by comparing the
+	 * canvas area changed by the frame, and its disposal, with the previous image. For
+	 * seekable sources, a frame whose descriptor, color table and image data bytes are the
+	 * same as the ones of the previous frame, which left the canvas as it was, is not even
+	 * LZW decoded.
+	 * 
+	 * @param policy {@link #DUPLICATE_FRAMES_KEEP}, the default, {@link #DUPLICATE_FRAMES_SHARE}
+	 *        or {@link #DUPLICATE_FRAMES_MERGE}. Merging only applies to {@link #read(InputStream) read},
+	 *        the frame by frame methods share.
+	 */
+	public void setDuplicateFrames(int policy) {
+		if(policy < DUPLICATE_FRAMES_KEEP || policy > DUPLICATE_FRAMES_MERGE)
+			throw new IllegalArgumentException("Invalid duplicate frames policy: " + policy);
+		this.duplicateFrames = policy;
+	}
 	
-		image_x = (ides[nindex++]&0xff)|((ides[nindex++]&0xff)<<8);
-		image_y = (ides[nindex++]&0xff)|((ides[nindex++]&0xff)<<8);
-		width =  (ides[nindex++]&0xff)|((ides[nindex++]&0xff)<<8);
-		height = (ides[nindex++]&0xff)|((ides[nindex++]&0xff)<<8);
-
-		return ides[nindex++];
+	/**
+	 * @param limits resource limits checked while reading or null, the default, for none
+	 */
+	public void setDecodeLimits(DecodeLimits limits) {
+		this.limits = limits;
 	}
-    
-	private void readLocalPalette(InputStream is,int num_of_color) throws Exception	{
-		int index1 = 0;
-		int bytes2read = num_of_color*3;
-		byte brgb[] = new byte[bytes2read];  
-		IOUtils.readFully(is,brgb,0,bytes2read);
 	
-		rgbColorPalette = new int[num_of_color];
-			
-		for(int i = 0; i < num_of_color; i++)
-			rgbColorPalette[i] = ((255<<24)|((brgb[index1++]&0xff)<<16)|((brgb[index1++]&0xff)<<8)|(brgb[index1++]&0xff));
+	/**
+	 * @param metrics receives the decoding statistics or null, the default, for none
+	 */
+	public void setDecodeMetrics(DecodeMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * @param listener gets low resolution previews of the interlaced frames as they are decoded
+	 *        or null, the default, for no previews
+	 */
+	public void setProgressListener(ProgressListener listener) {
+		this.progressListener = listener;
+	}
+	
+	// Adapts the InputStream to a GIFSource. The same source is used for successive calls
+	// with the same stream since it may have buffered bytes ahead of the frame boundary.
+	private GIFSource source(InputStream is) {
+		if(is != sourceStream) {
+			sourceStream = is;
+			streamSource = GIFSource.wrap(is);
+		}
+		return streamSource;
+	}
+	
+	/**
+	 * Forgets about the image read so far so that the reader can be used for another
+	 * image. {@link #read(InputStream) read} calls this method itself, the frame by
+	 * frame methods need it to be called before starting on a new image. The logical
+	 * screen canvas and the scratch buffers are kept for the next image.
+	 */
+	public void reset() {
+		header = null;
+		logicalScreenWidth = 0;
+		logicalScreenHeight = 0;
+		backgroundColor = new Color(255, 255, 255);
+		globalColorPalette = null;
+		globalBitsPerPixel = 0;
+		bitsPerPixel = 0;
+		colorsUsed = 0;
+		rgbColorPalette = null;
+		frames = null;
+		gifFrames = null;
+		if(compositor != null) compositor.clear();
+		sourceStream = null;
+		frameStats = null;
+		frameIndex = 0;
+		lastImage = null;
+		lastEntry = null;
+		lastPalette = null;
+		lastDataOffset = 0;
+		lastDataLength = 0;
+		usage = new DecodeLimits.Usage(null);
+		limitViolation = null;
+		streamSource = null;
+		resetFrameParameters();
 	}
 	
 	private void resetFrameParameters() {
@@ -448,25 +844,44 @@ public class AnimatedGIFReader {
 		image_y = 0;
 		width = 0;
 		height = 0;
+		interlaced = false;
 		// End of fields reset
 	}
 	
-	private static class GifHeader {
-		private byte  signature[] = new byte[3];
-		private byte  version[] = new byte[3];
+	/**
+	 * Receives previews of interlaced frames as the interlace passes complete.
+	 * <p>
+	 * After each of the first 3 passes, the rows not decoded yet are filled with the
+	 * nearest decoded row: every 8th row is decoded after pass 1, every 4th after pass 2
+	 * and every other row after pass 3. Previews are the same kind of image as the
+	 * frame being read, i.e., frame size or composited onto the logical screen. Pass 4
+	 * gives the final image, the one returned for the frame. Non-interlaced frames
+	 * get no calls.
+	 */
+	public interface ProgressListener {
+		/**
+		 * @param pass interlace pass just completed, 1 to 4
+		 * @param image preview for passes 1 to 3 or the final image for pass 4
+		 */
+		void onPass(int pass, BufferedImage image);
+	}
+	
+	static class GifHeader {
+		byte  signature[] = new byte[3];
+		byte  version[] = new byte[3];
 
-		private int screen_width;
-		private int screen_height;
-		private byte  flags;
-		private byte  bgcolor;
+		int screen_width;
+		int screen_height;
+		byte  flags;
+		byte  bgcolor;
 		@SuppressWarnings("unused")
 		private byte  aspectRatio;
   
-		void readHeader(InputStream is) throws Exception {
+		void readHeader(GIFSource is) throws Exception {
 			int nindex = 0;
 			byte bhdr[] = new byte[13];
 
-			IOUtils.readFully(is,bhdr,0,13);
+			is.readFully(bhdr,0,13);
 	
 			for(int i = 0; i < 3; i++)
 				signature[i] = bhdr[nindex++];
@@ -593,208 +1008,4 @@ public class AnimatedGIFReader {
 			return userInputFlag;
 		}
 	}
-	
-	private static class IOUtils {
-			 
-		public static void readFully(InputStream is, byte b[]) throws IOException {
-			readFully(is, b, 0, b.length);
-		}
-		 
-		public static void readFully(InputStream is, byte[] b, int off, int len) throws IOException {
-			if (len < 0)
-				throw new IndexOutOfBoundsException();
-			int n = 0;         
-			while (n < len) {
-				int count = is.read(b, off + n, len - n);
-				if (count < 0)
-					throw new EOFException();
-				n += count;
-			}
-		}
-		 
-		public static int readUnsignedShort(InputStream is) throws IOException {
-			byte[] buf = new byte[2];
-			readFully(is, buf);
-			
-			return ((buf[1]&0xff)<<8)|(buf[0]&0xff);
-		}
-		
-		public static void skipFully(InputStream is, int n) throws IOException {
-			readFully(is, new byte[n]);
-		}	
-		 
-		private IOUtils() {}
-	}
-	 
-	private static class LZWTreeDecoder {
-	
-		// Variables for code reading
-		private int bits_remain = 0;
-		private int bytes_available = 0;
-		private int temp_byte = 0;        
-		private int bufIndex = 0;
-		private byte bytes_buf[] = new byte[256];
-	    
-		private int oldcode = 0 ;
-		private int code = 0;
-		private int[] prefix = new int[4097];
-		private int[] suffix = new int[4097];
-
-		private int min_code_size;
-		private int clearCode;
-		// End of image for GIF or end of information for TIFF
-		private int endOfImage;
-
-		// Variables to clear table
-		private int codeLen;
-		private int codeIndex;
-		private int limit;
-
-		private int first_code_index;
-		private int first_char;
-
-		private InputStream is;
-	
-		private static final int MASK[] = {0x00,0x001,0x003,0x007,0x00f,0x01f,0x03f,0x07f,0x0ff,0x1ff,0x3ff,0x7ff,0xfff};
-		
-	    private int leftOver = 0;// Used to keep track of the not fully expanded code string.
-		private int buf[] = new int[4097];
-		
-		private static final int MAX_CODE = (1<<12);
-		
-		/**
-		 * There are some subtle differences between the LZW algorithm used by TIFF and GIF images.
-		 *
-		 * Variable Length Codes:
-		 * Both TIFF and GIF use a variation of the LZW algorithm that uses variable length codes.
-		 * In both cases, the maximum code size is 12 bits. The initial code size, however, is different
-		 * between the two formats. TIFF's initial code size is always 9 bits. GIF's initial code size 
-		 * is specified on a per-file basis at the beginning of the image descriptor block, 
-		 * with a minimum of 3 bits.
-		 * <p>
-		 * TIFF and GIF each switch to the next code size using slightly different algorithms. 
-		 * GIF increments the code size as soon as the LZW string table's length is equal to 2**code-size,
-		 * while TIFF increments the code size when the table's length is equal to 2**code-size - 1.
-		 * <p>
-		 * Packing Bits into Bytes
-		 * TIFF and GIF LZW algorithms differ in how they pack the code bits into the byte stream.
-		 * The least significant bit in a TIFF code is stored in the most significant bit of the bytestream,
-		 * while the least significant bit in a GIF code is stored in the least significant bit of the bytestream.
-		 * <p>
-		 * Special Codes
-		 * TIFF and GIF both add the concept of a 'Clear Code' and a 'End of Information Code' to the LZW algorithm. 
-		 * In both cases, the 'Clear Code' is equal to 2**(code-size - 1) and the 'End of Information Code' is equal
-		 * to the Clear Code + 1. These 2 codes are reserved in the string table. So in both cases, the LZW string
-		 * table is initialized to have a length equal to the End of Information Code + 1.	
-		 */
-		public LZWTreeDecoder(InputStream is, int min_code_size) {
-			if(min_code_size < 2 || min_code_size > 12)
-				   throw new IllegalArgumentException("invalid min_code_size: " + min_code_size);
-			this.is = is;
-		   	this.min_code_size = min_code_size;
-		   	clearCode = (1<<min_code_size);
-		   	endOfImage = clearCode+1;
-		   	first_code_index = endOfImage+1;
-		   	// Reset string table
-		   	clearStringTable();
-		}
-		
-		private void clearStringTable() {
-		   	// Reset string table
-		   	codeLen = min_code_size+1;
-		   	limit = (1<<codeLen)-1;
-		   	codeIndex = endOfImage;	
-		}
-		
-		public int decode(byte[] pix, int offset, int len) throws Exception {
-			int counter = 0;// Keep track of how many bytes have been decoded.
-			///////////////
-			int tempcode = 0;
-			int i = 0;
-	        //////////////////////////////////////////////////////////
-			if(leftOver>0){//flush out left over first.
-				for( int j = leftOver-1; j >= 0; j--, leftOver-- ) {
-					   if ((offset >= pix.length)||(counter>=len))// Will this ever happen?!
-						   return counter;
-					   pix[offset++] = (byte)buf[j];
-					   counter++;
-		       }
-			}
-	        //////////////////////////////////////////////////////////
-	        label:
-			do {
-				i = 0;
-				code = readLZWCode();
-				tempcode = code;
-
-				if(code == clearCode) {
-					clearStringTable();
-				} else if(code == endOfImage) {  
-				    break;
-				} else {
-				   if(code >= codeIndex) {
-	                    tempcode = oldcode;
-	  				    buf[i++] = first_char;
-				   }
-			       while (tempcode >= first_code_index) {
-				       buf[i++] = suffix[tempcode];
-			           tempcode = prefix[tempcode];
-			       }
-			       buf[i++] = tempcode;
-
-				   suffix[codeIndex] = first_char = tempcode;
-			       prefix[codeIndex] = oldcode;
-			       // Check boundary to deal with deferred clear code in LZW compression
-			       if(codeIndex < MAX_CODE) codeIndex++; 
-			       
-			       oldcode = code;
-		           
-				   if((codeIndex > limit) && (codeLen<12)) {
-			           codeLen++;
-				       limit = (1<<codeLen)-1;			  
-				   }
-				   // Output strings for the current code
-			       leftOver = i;
-				   for( int j = i-1; j >= 0; j--, leftOver--, counter++ ) {
-					   if ((offset >= pix.length)||(counter>=len))
-				             break label;
-					   pix[offset++] = (byte)buf[j];
-			       }
-			    }
-	        } while(true);
-
-			return counter;
-	 	}
-	   
-		private int readLZWCode() throws Exception {
-	        int temp = 0;		
-			temp = (temp_byte >> (8-bits_remain));
-		
-			while (codeLen > bits_remain) {
-				if(bytes_available == 0) {
-					// find another data block available
-					// Start a new image data sub-block if possible!
-	            	// The block size bytes_available is no bigger than 0xff
-					bytes_available = is.read();
-					
-					if(bytes_available > 0) {
-						IOUtils.readFully(is,bytes_buf,0,bytes_available);
-						bufIndex = 0;
-					} else if(bytes_available == 0)
-						return endOfImage;
-					else {
-						return endOfImage;
-					}
-				}				
-				temp_byte = bytes_buf[bufIndex++]&0xff;
-				bytes_available--;
-				temp |= (temp_byte<<bits_remain);			
-				bits_remain += 8;
-			}
-			
-			bits_remain -= codeLen;
-	        
-			return (temp&MASK[codeLen]);
-		}		
-	}
 }
\ No newline at end of file
@@ -0,0 +1,420 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * BatchDecoder.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Stream;
+
+/**
+ * Decodes a large number of GIF files concurrently under a memory budget.
+ * <p>
+ * Each file is pre-scanned with {@link GIFMetadata#probe(GIFSource)} first. The memory
+ * its decoding needs is predicted from the logical screen size and the frame count and
+ * the file is only handed over to the executor once the memory predicted for the files
+ * being decoded plus its own fits into the budget. A few giant GIFs thus wait for
+ * memory instead of running a worker decoding thousands of small ones out of heap. A
+ * file predicted to need more than the whole budget is rejected.
+ * <p>
+ * By default the files are decoded on a pool with a thread per processor. The scratch
+ * buffers and LZW decoders are pooled per thread by {@link BufferPool}, so a long lived
+ * worker reuses them from file to file. Virtual threads can be used by passing
+ * {@link #virtualThreadExecutor()} to {@link #BatchDecoder(Executor)}, but as each file
+ * then runs on a thread of its own, nothing is reused, which is why they are not the
+ * default. Each file is decoded with an
+ * {@link AnimatedGIFReader} which is handed over to the {@link Handler} if there is one.
+ * <p>
+ * From the command line:
+ * <pre>
+ * java com.github.dragon66.BatchDecoder [-threads n | -virtual] [-budget megabytes] [-concurrency n] path...
+ * </pre>
+ * where a path is a GIF file, a directory searched recursively for .gif files or
+ * {@literal @}file, a manifest listing a path per line.
+ */
+public class BatchDecoder {
+	private Executor executor;
+	private long memoryBudget;
+	private int maxConcurrency;
+	private Handler handler;
+	private DecodeLimits limits;
+	// Memory predicted for the files being decoded
+	private long reserved;
+	private int inFlight;
+
+	/**
+	 * Creates a decoder using a thread per processor, half the maximum heap as memory
+	 * budget and twice the number of processors as maximum concurrency.
+	 */
+	public BatchDecoder() {
+		this.memoryBudget = Runtime.getRuntime().maxMemory()/2;
+		this.maxConcurrency = 2*Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Creates a decoder running the decoding on the given executor.
+	 */
+	public BatchDecoder(Executor executor) {
+		this();
+		this.executor = executor;
+	}
+
+	/**
+	 * Predicts the heap needed to decode a GIF with {@link AnimatedGIFReader#read(GIFSource)}:
+	 * a logical screen sized ARGB image per frame, the canvas and the copy kept for the
+	 * disposal plus the color indices of the largest frame.
+	 *
+	 * @return the predicted number of bytes
+	 */
+	public static long predictMemory(GIFMetadata metadata) {
+		long screen = 4L*metadata.getLogicalScreenWidth()*metadata.getLogicalScreenHeight();
+		long indices = 0;
+		for(GIFIndex.Entry entry : metadata.getFrames())
+			indices = Math.max(indices, (long)entry.getWidth()*entry.getHeight());
+		return screen*(metadata.getFrameCount() + 2) + indices;
+	}
+
+	/**
+	 * Decodes all the files, returning when they are all done.
+	 *
+	 * @param files the GIF files to decode, iterated once on the calling thread
+	 * @return the report of the run
+	 * @throws InterruptedException
+	 */
+	public BatchReport run(Iterator<File> files) throws InterruptedException {
+		BatchReport report = new BatchReport();
+		Executor executor = this.executor;
+		ExecutorService owned = null;
+		if(executor == null)
+			executor = owned = defaultExecutor();
+
+		long start = System.nanoTime();
+
+		try {
+			while(files.hasNext())
+				submit(executor, files.next(), report);
+			synchronized(this) {
+				while(inFlight > 0)
+					wait();
+			}
+		} finally {
+			if(owned != null)
+				owned.shutdown();
+		}
+
+		report.finished(System.nanoTime() - start);
+
+		return report;
+	}
+
+	/**
+	 * @param limits resource limits applied to each file or null, the default, for none.
+	 *        A file going over them counts as failed.
+	 */
+	public void setDecodeLimits(DecodeLimits limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * @param handler called on the decoding thread for each file decoded, may be null
+	 */
+	public void setHandler(Handler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * @param maxConcurrency maximum number of files decoded at the same time
+	 */
+	public void setMaxConcurrency(int maxConcurrency) {
+		if(maxConcurrency < 1)
+			throw new IllegalArgumentException("Invalid concurrency: " + maxConcurrency);
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	/**
+	 * @param bytes maximum heap predicted for the files decoded at the same time
+	 */
+	public void setMemoryBudget(long bytes) {
+		if(bytes <= 0)
+			throw new IllegalArgumentException("Invalid memory budget: " + bytes);
+		this.memoryBudget = bytes;
+	}
+
+	// Waits for the memory predicted and a free worker
+	private synchronized void admit(long bytes) throws InterruptedException {
+		while(inFlight >= maxConcurrency || reserved + bytes > memoryBudget)
+			wait();
+		reserved += bytes;
+		inFlight++;
+	}
+
+	private synchronized void done(long bytes) {
+		reserved -= bytes;
+		inFlight--;
+		notifyAll();
+	}
+
+	// Pre-scans the file on the calling thread and hands it over once admitted
+	private void submit(Executor executor, final File file, final BatchReport report) throws InterruptedException {
+		final long start = System.nanoTime();
+		GIFSource source = null;
+		final long memory;
+
+		try {
+			source = GIFSource.map(file);
+			GIFMetadata metadata = GIFMetadata.probe(source);
+			if(metadata == null) {
+				report.rejected(file.getPath(), "not a GIF");
+				close(source);
+				return;
+			}
+			memory = predictMemory(metadata);
+			if(memory > memoryBudget) {
+				report.rejected(file.getPath(), "needs " + memory + " bytes, over the memory budget");
+				close(source);
+				return;
+			}
+			source.seek(0);
+		} catch(Exception ex) {
+			report.failed(file.getPath(), ex, System.nanoTime() - start);
+			close(source);
+			return;
+		}
+
+		try {
+			admit(memory);
+		} catch(InterruptedException ex) {
+			close(source);
+			throw ex;
+		}
+
+		final GIFSource gif = source;
+
+		try {
+			executor.execute(new Runnable() {
+				public void run() {
+					try {
+						AnimatedGIFReader reader = new AnimatedGIFReader();
+						reader.setDecodeLimits(limits);
+						reader.read(gif);
+						if(handler != null)
+							handler.decoded(file, reader);
+						report.decoded(reader.getFrameCount(), file.length(), System.nanoTime() - start);
+					} catch(Throwable t) {
+						report.failed(file.getPath(), t, System.nanoTime() - start);
+					} finally {
+						close(gif);
+						done(memory);
+					}
+				}
+			});
+		} catch(RuntimeException ex) { // Rejected by the executor
+			report.failed(file.getPath(), ex, System.nanoTime() - start);
+			close(gif);
+			done(memory);
+		}
+	}
+
+	private static void close(GIFSource source) {
+		if(source == null) return;
+		try {
+			source.close();
+		} catch(IOException ex) {
+			// Nothing left to do with the file
+		}
+	}
+
+	// A thread per processor, platform threads keep their BufferPool from file to file
+	private static ExecutorService defaultExecutor() {
+		return platformExecutor(Runtime.getRuntime().availableProcessors());
+	}
+
+	private static ExecutorService platformExecutor(int threads) {
+		return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "gif-batch");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Creates an executor starting a virtual thread for each file. The buffers pooled by
+	 * {@link BufferPool} then live and die with each file.
+	 *
+	 * @return the executor or null if virtual threads are not available, i.e., the JVM is
+	 *         older than 21
+	 */
+	public static ExecutorService virtualThreadExecutor() {
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch(Exception ex) { // No such method before JDK 21
+			return null;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		BatchDecoder decoder = new BatchDecoder();
+		ExecutorService executor = null;
+		int i = 0;
+
+		for(; i < args.length && args[i].startsWith("-"); i++) {
+			if(args[i].equals("-virtual")) {
+				if(executor != null) usage();
+				executor = virtualThreadExecutor();
+				if(executor == null) {
+					System.err.println("Virtual threads need Java 21 or later");
+					System.exit(1);
+				}
+				continue;
+			}
+			if(i + 1 >= args.length) usage();
+			if(args[i].equals("-threads")) {
+				if(executor != null) usage();
+				executor = platformExecutor(Integer.parseInt(args[i + 1]));
+			} else if(args[i].equals("-budget"))
+				decoder.setMemoryBudget(Long.parseLong(args[i + 1])<<20);
+			else if(args[i].equals("-concurrency"))
+				decoder.setMaxConcurrency(Integer.parseInt(args[i + 1]));
+			else
+				usage();
+			i++;
+		}
+
+		if(i == args.length) usage();
+
+		decoder.executor = executor;
+		BatchReport report;
+		try(FileIterator files = new FileIterator(Arrays.asList(args).subList(i, args.length).iterator())) {
+			report = decoder.run(files);
+		} finally {
+			if(executor != null)
+				executor.shutdown();
+		}
+
+		for(String error : report.getErrors())
+			System.err.println(error);
+		System.out.println(report);
+	}
+
+	private static void usage() {
+		System.err.println("Usage: BatchDecoder [-threads n | -virtual] [-budget megabytes] [-concurrency n] (file | directory | @manifest)...");
+		System.exit(1);
+	}
+
+	/**
+	 * Called with each file decoded.
+	 */
+	public interface Handler {
+		/**
+		 * @param file the file decoded
+		 * @param reader the reader holding the frames of the file
+		 * @throws Exception counted as a failure of the file
+		 */
+		void decoded(File file, AnimatedGIFReader reader) throws Exception;
+	}
+
+	/**
+	 * Lists the files named by the command line paths lazily so huge directories and
+	 * manifests aren't held in memory.
+	 */
+	private static class FileIterator implements Iterator<File>, Closeable {
+		private Iterator<String> paths;
+		private Iterator<Path> current = Collections.<Path>emptyIterator();
+		// Directory being walked, holds open directory handles until closed
+		private Stream<Path> walk;
+		private BufferedReader manifest;
+		private File next;
+
+		FileIterator(Iterator<String> paths) {
+			this.paths = paths;
+		}
+
+		public void close() throws IOException {
+			if(walk != null) {
+				walk.close();
+				walk = null;
+			}
+			if(manifest != null) {
+				manifest.close();
+				manifest = null;
+			}
+		}
+
+		public boolean hasNext() {
+			try {
+				while(next == null) {
+					if(manifest != null) {
+						String line = manifest.readLine();
+						if(line == null) {
+							manifest.close();
+							manifest = null;
+						} else if(!line.trim().isEmpty())
+							next = new File(line.trim());
+					} else if(current.hasNext()) {
+						Path path = current.next();
+						if(Files.isRegularFile(path) && path.toString().toLowerCase().endsWith(".gif"))
+							next = path.toFile();
+					} else if(walk != null) { // Done with the directory
+						walk.close();
+						walk = null;
+						current = Collections.<Path>emptyIterator();
+					} else if(paths.hasNext()) {
+						String path = paths.next();
+						if(path.startsWith("@"))
+							manifest = new BufferedReader(new InputStreamReader(new FileInputStream(path.substring(1)), "UTF-8"));
+						else if(new File(path).isDirectory()) {
+							walk = Files.walk(Paths.get(path));
+							current = walk.iterator();
+						}
+						else
+							next = new File(path);
+					} else
+						return false;
+				}
+			} catch(IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return true;
+		}
+
+		public File next() {
+			if(!hasNext()) throw new NoSuchElementException();
+			File file = next;
+			next = null;
+			return file;
+		}
+	}
+}
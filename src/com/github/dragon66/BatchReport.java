@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * BatchReport.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link BatchDecoder} run: counts, throughput and latency percentiles.
+ * <p>
+ * The latency of a file goes from the start of its pre-scan to the end of its
+ * decoding, waiting for admission included. Latencies are kept in a histogram of
+ * fixed size with a precision of about 6%, whatever the number of files.
+ */
+public final class BatchReport {
+	private static final int MAX_ERRORS = 100;
+	// Values below this are counted exactly, above it each power of two is split in SUB_BUCKETS
+	private static final int LINEAR_BUCKETS = 32;
+	private static final int SUB_BUCKETS = 16;
+
+	private int decoded;
+	private int failed;
+	private int rejected;
+	private long frames;
+	private long bytes;
+	private long elapsedNanos;
+	private long maxLatency;
+	// Latencies in microseconds
+	private long[] histogram = new long[LINEAR_BUCKETS + 59*SUB_BUCKETS];
+	private List<String> errors = new ArrayList<String>();
+
+	BatchReport() {}
+
+	synchronized void decoded(int frameCount, long length, long latencyNanos) {
+		decoded++;
+		frames += frameCount;
+		bytes += length;
+		record(latencyNanos);
+	}
+
+	synchronized void failed(String file, Throwable t, long latencyNanos) {
+		failed++;
+		error(file, t.toString());
+		record(latencyNanos);
+	}
+
+	synchronized void rejected(String file, String reason) {
+		rejected++;
+		error(file, reason);
+	}
+
+	void finished(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	private void error(String file, String message) {
+		if(errors.size() < MAX_ERRORS)
+			errors.add(file + ": " + message);
+	}
+
+	private void record(long latencyNanos) {
+		long micros = Math.max(latencyNanos/1000, 0);
+		histogram[bucket(micros)]++;
+		maxLatency = Math.max(maxLatency, micros);
+	}
+
+	private static int bucket(long micros) {
+		if(micros < LINEAR_BUCKETS) return (int)micros;
+		int exponent = 63 - Long.numberOfLeadingZeros(micros); // 5 and above
+		int sub = (int)(micros >>> (exponent - 4))&(SUB_BUCKETS - 1);
+		return LINEAR_BUCKETS + (exponent - 5)*SUB_BUCKETS + sub;
+	}
+
+	// Middle of the values counted by a bucket
+	private static long value(int bucket) {
+		if(bucket < LINEAR_BUCKETS) return bucket;
+		int exponent = (bucket - LINEAR_BUCKETS)/SUB_BUCKETS + 5;
+		int sub = (bucket - LINEAR_BUCKETS)%SUB_BUCKETS;
+		long width = 1L<<(exponent - 4);
+		return (SUB_BUCKETS + sub)*width + width/2;
+	}
+
+	/**
+	 * @return the number of files decoded
+	 */
+	public synchronized int getDecodedCount() {
+		return decoded;
+	}
+
+	/**
+	 * @return the elapsed time of the run in milliseconds
+	 */
+	public long getElapsedTime() {
+		return elapsedNanos/1000000L;
+	}
+
+	/**
+	 * @return the first failures and rejections as "file: reason", at most 100 of them
+	 */
+	public synchronized List<String> getErrors() {
+		return Collections.unmodifiableList(new ArrayList<String>(errors));
+	}
+
+	/**
+	 * @return the number of files whose decoding failed
+	 */
+	public synchronized int getFailedCount() {
+		return failed;
+	}
+
+	/**
+	 * @return the number of frames of the files decoded
+	 */
+	public synchronized long getFrameCount() {
+		return frames;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the latency in milliseconds below which the given percentage of the
+	 *         decoded or failed files fall
+	 */
+	public synchronized double getLatency(double percentile) {
+		if(percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("Invalid percentile: " + percentile);
+		long count = decoded + failed;
+		if(count == 0) return 0;
+		long rank = Math.max((long)Math.ceil(percentile*count/100), 1);
+		long seen = 0;
+		for(int i = 0; i < histogram.length; i++) {
+			seen += histogram[i];
+			if(seen >= rank)
+				return Math.min(value(i), maxLatency)/1000.0;
+		}
+		return maxLatency/1000.0;
+	}
+
+	/**
+	 * @return the maximum latency in milliseconds
+	 */
+	public synchronized double getMaxLatency() {
+		return maxLatency/1000.0;
+	}
+
+	/**
+	 * @return the number of files which were not GIFs or were predicted to need more
+	 *         memory than the whole budget
+	 */
+	public synchronized int getRejectedCount() {
+		return rejected;
+	}
+
+	/**
+	 * @return the number of bytes of the files decoded
+	 */
+	public synchronized long getByteCount() {
+		return bytes;
+	}
+
+	/**
+	 * @return the number of files decoded per second
+	 */
+	public synchronized double getThroughput() {
+		return (elapsedNanos > 0)? decoded*1e9/elapsedNanos : 0;
+	}
+
+	public synchronized String toString() {
+		double seconds = elapsedNanos/1e9;
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%d decoded, %d failed, %d rejected in %.2fs%n", decoded, failed, rejected, seconds));
+		if(seconds > 0)
+			sb.append(String.format("%.1f files/s, %.1f frames/s, %.2f MB/s%n", decoded/seconds, frames/seconds, bytes/seconds/(1<<20)));
+		sb.append(String.format("latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f",
+				getLatency(50), getLatency(90), getLatency(99), getLatency(99.9), getMaxLatency()));
+		return sb.toString();
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * BufferPool.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-thread pool of the scratch buffers used while decoding.
+ * <p>
+ * Frame sized color index buffers and {@link LZWTreeDecoder LZW decoders} together
+ * with their string tables are recycled from frame to frame and from image to image
+ * instead of being allocated anew each time. Each thread has its own pool so no
+ * locking is involved. The byte arrays kept by a pool are limited in number and in
+ * total size by the {@link #setCapacity(long) capacity}, arrays which don't fit are
+ * left to the garbage collector.
+ * <p>
+ * Only buffers which are not referenced anymore, i.e., not wrapped into an image
+ * handed out to the caller, are given back to the pool.
+ */
+public final class BufferPool {
+	public static final long DEFAULT_CAPACITY = 16L<<20;
+	private static final int MAX_BUFFERS = 8;
+
+	private static volatile long capacity = DEFAULT_CAPACITY;
+
+	private static final ThreadLocal<BufferPool> POOL = new ThreadLocal<BufferPool>() {
+		protected BufferPool initialValue() {
+			return new BufferPool();
+		}
+	};
+
+	private List<byte[]> buffers = new ArrayList<byte[]>(MAX_BUFFERS);
+	private long size;
+	private LZWTreeDecoder decoder;
+
+	private BufferPool() {}
+
+	/**
+	 * Drops the buffers pooled by the current thread.
+	 */
+	public static void clear() {
+		BufferPool pool = POOL.get();
+		pool.buffers.clear();
+		pool.size = 0;
+		pool.decoder = null;
+	}
+
+	/**
+	 * @return the pool of the current thread
+	 */
+	static BufferPool get() {
+		return POOL.get();
+	}
+
+	public static long getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @param bytes maximum number of bytes kept by the pool of each thread, defaults to
+	 *        {@link #DEFAULT_CAPACITY}. 0 disables pooling of byte arrays.
+	 */
+	public static void setCapacity(long bytes) {
+		if(bytes < 0)
+			throw new IllegalArgumentException("Invalid capacity: " + bytes);
+		capacity = bytes;
+	}
+
+	/**
+	 * Gives a byte array back to the pool. The array must not be used afterwards.
+	 */
+	void release(byte[] buf) {
+		long capacity = BufferPool.capacity;
+		if(buf.length > capacity) return;
+		// Make room by dropping the oldest buffers
+		while(!buffers.isEmpty() && (buffers.size() == MAX_BUFFERS || size + buf.length > capacity))
+			size -= buffers.remove(0).length;
+		buffers.add(buf);
+		size += buf.length;
+	}
+
+	/**
+	 * Gives a decoder back to the pool. The decoder must not be used afterwards.
+	 */
+	void release(LZWTreeDecoder decoder) {
+		decoder.detach();
+		this.decoder = decoder;
+	}
+
+	/**
+	 * @return the smallest pooled byte array at least length long or a new array of
+	 *         that length. The content of a pooled array is left as is.
+	 */
+	byte[] takeBytes(int length) {
+		int best = -1;
+		for(int i = 0; i < buffers.size(); i++) {
+			int bufLength = buffers.get(i).length;
+			if(bufLength >= length && (best < 0 || bufLength < buffers.get(best).length))
+				best = i;
+		}
+		if(best < 0) return new byte[length];
+		byte[] buf = buffers.remove(best);
+		size -= buf.length;
+		return buf;
+	}
+
+	/**
+	 * @return the pooled decoder reset for new image data or a new decoder
+	 */
+	LZWTreeDecoder takeDecoder(GIFSource is, int min_code_size) {
+		LZWTreeDecoder decoder = this.decoder;
+		if(decoder == null) return new LZWTreeDecoder(is, min_code_size);
+		decoder.reset(is, min_code_size);
+		this.decoder = null;
+		return decoder;
+	}
+}
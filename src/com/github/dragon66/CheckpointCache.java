@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * CheckpointCache.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of logical screen canvas snapshots keyed by frame index.
+ * <p>
+ * The total size of the snapshots is kept within a byte budget by evicting the least
+ * recently used ones. Snapshots larger than the budget are not cached at all.
+ */
+class CheckpointCache {
+	private Map<Integer, int[]> checkpoints = new LinkedHashMap<Integer, int[]>(16, 0.75f, true);
+	private long budget;
+	private long size;
+
+	CheckpointCache(long budget) {
+		setBudget(budget);
+	}
+
+	void clear() {
+		checkpoints.clear();
+		size = 0;
+	}
+
+	boolean contains(int frame) {
+		return checkpoints.containsKey(frame);
+	}
+
+	// Evicts the least recently used snapshots until there is room for the given number of bytes
+	private void evict(long bytes) {
+		Iterator<int[]> iter = checkpoints.values().iterator();
+		while(size + bytes > budget && iter.hasNext()) {
+			size -= 4L*iter.next().length;
+			iter.remove();
+		}
+	}
+
+	/**
+	 * @return the snapshot taken before the frame was drawn or null if there is none
+	 */
+	int[] get(int frame) {
+		return checkpoints.get(frame);
+	}
+
+	long getBudget() {
+		return budget;
+	}
+
+	long getSize() {
+		return size;
+	}
+
+	/**
+	 * Caches a snapshot. The array is kept as is and must not be modified afterwards.
+	 *
+	 * @return true if the snapshot was cached
+	 */
+	boolean put(int frame, int[] pixels) {
+		long bytes = 4L*pixels.length;
+		if(bytes > budget) return false;
+		int[] old = checkpoints.remove(frame);
+		if(old != null) size -= 4L*old.length;
+		evict(bytes);
+		checkpoints.put(frame, pixels);
+		size += bytes;
+		return true;
+	}
+
+	void setBudget(long budget) {
+		if(budget < 0)
+			throw new IllegalArgumentException("Invalid budget: " + budget);
+		this.budget = budget;
+		evict(0);
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * DecodeLimitException.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a GIF goes over one of the {@link DecodeLimits} set on the reader.
+ */
+public class DecodeLimitException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	public static final int SCREEN_PIXELS = 0;
+	public static final int FRAME_PIXELS = 1;
+	public static final int FRAME_COUNT = 2;
+	public static final int DECODED_BYTES = 3;
+	public static final int DECODE_TIME = 4;
+
+	private static final String[] NAMES = {"logical screen pixels", "frame pixels", "frame count", "decoded bytes", "decode time (ms)"};
+
+	private final int limit;
+	private final long maximum;
+	private final long actual;
+
+	DecodeLimitException(int limit, long maximum, long actual) {
+		super("Limit exceeded - " + NAMES[limit] + ": " + actual + " > " + maximum);
+		this.limit = limit;
+		this.maximum = maximum;
+		this.actual = actual;
+	}
+
+	/**
+	 * @return the value which went over the limit
+	 */
+	public long getActual() {
+		return actual;
+	}
+
+	/**
+	 * @return the limit violated, {@link #SCREEN_PIXELS}, {@link #FRAME_PIXELS},
+	 *         {@link #FRAME_COUNT}, {@link #DECODED_BYTES} or {@link #DECODE_TIME}
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	public long getMaximum() {
+		return maximum;
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * DecodeLimits.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+/**
+ * Limits on the resources a single GIF may use while being decoded, to guard against
+ * decompression bombs and pathological images from untrusted sources. They are set on
+ * an {@link AnimatedGIFReader}, {@link GIFFrameIterator}, {@link GIFPushParser},
+ * {@link ParallelGIFReader}, {@link PipelinedGIFReader}, {@link RandomAccessGIFReader}
+ * or {@link ThumbnailGIFReader}.
+ * <p>
+ * The sizes come from the logical screen and image descriptors and are checked as soon
+ * as the descriptors are read, before anything is allocated for them. A violation
+ * throws a {@link DecodeLimitException}. Every limit is unlimited by default:
+ * <pre>
+ * DecodeLimits limits = new DecodeLimits();
+ * limits.setMaxScreenPixels(4096*4096);
+ * limits.setMaxFrameCount(1000);
+ * limits.setMaxDecodeTime(2000);
+ * reader.setDecodeLimits(limits);
+ * </pre>
+ * The same limits may be shared by several readers.
+ */
+public final class DecodeLimits {
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	private volatile long maxScreenPixels = UNLIMITED;
+	private volatile long maxFramePixels = UNLIMITED;
+	private volatile long maxFrameCount = UNLIMITED;
+	private volatile long maxDecodedBytes = UNLIMITED;
+	private volatile long maxDecodeTime = UNLIMITED;
+	private volatile boolean partialResults;
+
+	void checkDecodedBytes(long decodedBytes) throws DecodeLimitException {
+		check(DecodeLimitException.DECODED_BYTES, maxDecodedBytes, decodedBytes);
+	}
+
+	void checkDecodeTime(long elapsedNanos) throws DecodeLimitException {
+		check(DecodeLimitException.DECODE_TIME, maxDecodeTime, elapsedNanos/1000000L);
+	}
+
+	void checkFrame(int frameCount, int width, int height) throws DecodeLimitException {
+		check(DecodeLimitException.FRAME_COUNT, maxFrameCount, frameCount);
+		check(DecodeLimitException.FRAME_PIXELS, maxFramePixels, (long)width*height);
+	}
+
+	void checkScreen(int width, int height) throws DecodeLimitException {
+		check(DecodeLimitException.SCREEN_PIXELS, maxScreenPixels, (long)width*height);
+	}
+
+	// Checks a number of pixels fits in an array whatever the limits
+	private static int checkArraySize(int limit, long pixels) throws DecodeLimitException {
+		check(limit, Integer.MAX_VALUE, pixels);
+		return (int)pixels;
+	}
+
+	private static void check(int limit, long maximum, long actual) throws DecodeLimitException {
+		if(actual > maximum)
+			throw new DecodeLimitException(limit, maximum, actual);
+	}
+
+	public long getMaxDecodedBytes() {
+		return maxDecodedBytes;
+	}
+
+	/**
+	 * @return the maximum wall-clock decode time in milliseconds
+	 */
+	public long getMaxDecodeTime() {
+		return maxDecodeTime;
+	}
+
+	public long getMaxFrameCount() {
+		return maxFrameCount;
+	}
+
+	public long getMaxFramePixels() {
+		return maxFramePixels;
+	}
+
+	public long getMaxScreenPixels() {
+		return maxScreenPixels;
+	}
+
+	public boolean isPartialResults() {
+		return partialResults;
+	}
+
+	/**
+	 * @param bytes maximum number of bytes decoded for an image: the color indices of all
+	 *        the frames plus the ARGB canvas and images created for the composited frames
+	 */
+	public void setMaxDecodedBytes(long bytes) {
+		this.maxDecodedBytes = positive(bytes);
+	}
+
+	/**
+	 * @param millis maximum wall-clock time from the start of the header to the start of
+	 *        the last frame. It is checked between frames, a single frame is bounded by
+	 *        {@link #setMaxFramePixels(long) the maximum frame pixels} instead.
+	 */
+	public void setMaxDecodeTime(long millis) {
+		this.maxDecodeTime = positive(millis);
+	}
+
+	public void setMaxFrameCount(long count) {
+		this.maxFrameCount = positive(count);
+	}
+
+	/**
+	 * @param pixels maximum width * height of an image descriptor
+	 */
+	public void setMaxFramePixels(long pixels) {
+		this.maxFramePixels = positive(pixels);
+	}
+
+	/**
+	 * @param pixels maximum width * height of the logical screen
+	 */
+	public void setMaxScreenPixels(long pixels) {
+		this.maxScreenPixels = positive(pixels);
+	}
+
+	/**
+	 * @param partialResults true to have {@link AnimatedGIFReader#read(GIFSource) read} stop
+	 *        at a violation and keep the frames decoded so far instead of throwing, provided
+	 *        there is at least one. The violation is then available from
+	 *        {@link AnimatedGIFReader#getLimitViolation()}. Defaults to false. The other
+	 *        readers always throw.
+	 */
+	public void setPartialResults(boolean partialResults) {
+		this.partialResults = partialResults;
+	}
+
+	private static long positive(long value) {
+		if(value <= 0)
+			throw new IllegalArgumentException("Invalid limit: " + value);
+		return value;
+	}
+
+	/**
+	 * Resources used so far by one image checked against the limits, if any. The sizes
+	 * which don't fit in an array are rejected even without limits. Shared by the stages
+	 * of a {@link PipelinedGIFReader}, hence synchronized.
+	 */
+	static final class Usage {
+		private DecodeLimits limits;
+		private long start = System.nanoTime();
+		private long decodedBytes;
+
+		/**
+		 * @param limits limits to check or null for none
+		 */
+		Usage(DecodeLimits limits) {
+			this.limits = limits;
+		}
+
+		synchronized void checkScreen(int width, int height) throws DecodeLimitException {
+			if(limits != null)
+				limits.checkScreen(width, height);
+		}
+
+		/**
+		 * Accounts for an ARGB canvas before it is allocated.
+		 *
+		 * @return width*height
+		 */
+		synchronized int checkCanvas(int width, int height) throws DecodeLimitException {
+			int size = checkArraySize(DecodeLimitException.SCREEN_PIXELS, (long)width*height);
+			decoded(4L*size);
+			return size;
+		}
+
+		/**
+		 * Checks the elapsed time, the frame count and the size of a frame before anything
+		 * is allocated for it.
+		 *
+		 * @param frameIndex zero based index of the frame
+		 * @return width*height
+		 */
+		synchronized int checkFrame(int frameIndex, int width, int height) throws DecodeLimitException {
+			if(limits != null) {
+				limits.checkDecodeTime(System.nanoTime() - start);
+				limits.checkFrame(frameIndex + 1, width, height);
+			}
+			return checkArraySize(DecodeLimitException.FRAME_PIXELS, (long)width*height);
+		}
+
+		/**
+		 * Accounts for bytes about to be decoded or allocated for the image.
+		 */
+		synchronized void decoded(long bytes) throws DecodeLimitException {
+			decodedBytes += bytes;
+			if(limits != null)
+				limits.checkDecodedBytes(decodedBytes);
+		}
+	}
+}
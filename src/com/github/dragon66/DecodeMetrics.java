@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * DecodeMetrics.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+/**
+ * Receives timings, byte counts and LZW statistics while an image is decoded.
+ * <p>
+ * Install an implementation with {@link AnimatedGIFReader#setDecodeMetrics(DecodeMetrics)}
+ * or pass one to {@link GIFMetadata#probe(GIFSource, DecodeMetrics)}. Without one, the
+ * readers only pay for a null check per frame. {@link #jfr()} turns the callbacks
+ * into JDK Flight Recorder events.
+ * <p>
+ * The callbacks are made on the decoding thread, they should return quickly.
+ */
+public interface DecodeMetrics {
+	/**
+	 * Called once the header, the logical screen descriptor and the global color table are read.
+	 *
+	 * @param nanos time spent reading them
+	 */
+	default void headerRead(long nanos) {}
+
+	/**
+	 * Called at the end of each frame read.
+	 *
+	 * @param stats statistics of the frame, owned by the callee
+	 */
+	default void frameRead(FrameStats stats) {}
+
+	/**
+	 * Called at the end of a {@link GIFMetadata} probe.
+	 *
+	 * @param nanos time spent probing
+	 * @param bytes number of bytes read
+	 * @param frameCount number of frames found
+	 */
+	default void probed(long nanos, long bytes, int frameCount) {}
+
+	/**
+	 * @return an implementation reporting JDK Flight Recorder events or null if it is not
+	 *         available, i.e., the build did not compile src-jfr or the JVM is older than 11
+	 */
+	static DecodeMetrics jfr() {
+		try {
+			return Class.forName("com.github.dragon66.JFRDecodeMetrics")
+					.asSubclass(DecodeMetrics.class).getDeclaredConstructor().newInstance();
+		} catch(Throwable t) { // Not compiled in, no jdk.jfr module or running on an older JDK
+			return null;
+		}
+	}
+}
@@ -0,0 +1,328 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * FrameCompositor.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+/**
+ * Composites GIF frames onto a logical screen canvas.
+ * <p>
+ * The work is done directly on the int[] backing the TYPE_INT_ARGB canvas. Color
+ * indices are mapped to ARGB through the 256 entry lookup table of the {@link Palette},
+ * in which the transparent index and the indices outside of the palette map to 0 so
+ * that those pixels are skipped.
+ * For restore to previous disposal, only the area covered by the frame is saved and
+ * only if the disposal method asks for it. All the scratch buffers are reused from frame
+ * to frame.
+ * <p>
+ * The areas drawn and disposed of are accumulated into a dirty rectangle so that
+ * {@link #diff(Rectangle)} only compares that part of the canvas with the copy kept
+ * from the previous call.
+ */
+class FrameCompositor {
+	private BufferedImage canvas;
+	private int[] pixels;
+	private int canvasWidth;
+	private int canvasHeight;
+
+	// Index to ARGB expansion, vectorized if the runtime supports it
+	private RowBlender blender = RowBlender.create();
+
+	// Scratch buffers
+	private int[] backup = new int[0];
+
+	// Area of the last frame drawn clipped to the canvas and its disposal method
+	private int areaX;
+	private int areaY;
+	private int areaWidth;
+	private int areaHeight;
+	private int disposalMethod = GIFFrame.DISPOSAL_UNSPECIFIED;
+
+	// Canvas as of the last diff, null before the first one
+	private int[] previous;
+	// Area changed since the last diff, empty if dirtyX0 >= dirtyX1
+	private int dirtyX0;
+	private int dirtyY0;
+	private int dirtyX1;
+	private int dirtyY1;
+
+	FrameCompositor(int canvasWidth, int canvasHeight) {
+		this.canvasWidth = canvasWidth;
+		this.canvasHeight = canvasHeight;
+		this.canvas = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+		this.pixels = ((DataBufferInt)canvas.getRaster().getDataBuffer()).getData();
+	}
+
+	/**
+	 * Applies the disposal method of the last frame drawn to prepare the canvas for the next frame.
+	 */
+	void dispose() {
+		switch(disposalMethod) {
+			case GIFFrame.DISPOSAL_UNSPECIFIED:
+			case GIFFrame.DISPOSAL_LEAVE_AS_IS:
+				break; // No action needed
+			case GIFFrame.DISPOSAL_RESTORE_TO_BACKGROUND:
+				for(int row = 0, index = areaY*canvasWidth + areaX; row < areaHeight; row++, index += canvasWidth)
+					Arrays.fill(pixels, index, index + areaWidth, 0);
+				markDirty(areaX, areaY, areaWidth, areaHeight);
+				break;
+			case GIFFrame.DISPOSAL_RESTORE_TO_PREVIOUS:
+				for(int row = 0, index = areaY*canvasWidth + areaX; row < areaHeight; row++, index += canvasWidth)
+					System.arraycopy(backup, row*areaWidth, pixels, index, areaWidth);
+				markDirty(areaX, areaY, areaWidth, areaHeight);
+				break;
+			default: // To be defined - start over with an empty canvas
+				Arrays.fill(pixels, 0);
+				markDirty(0, 0, canvasWidth, canvasHeight);
+		}
+		disposalMethod = GIFFrame.DISPOSAL_UNSPECIFIED;
+	}
+
+	/**
+	 * Draws a frame onto the canvas.
+	 *
+	 * @param indices color indices of the frame, width*height of them
+	 * @param x left position of the frame on the canvas
+	 * @param y top position of the frame on the canvas
+	 * @param width frame width
+	 * @param height frame height
+	 * @param colorPalette color palette of the frame
+	 * @param transparentIndex transparent color index or {@link GIFFrame#TRANSPARENCY_COLOR_NONE}
+	 * @param disposalMethod disposal method to apply when {@link #dispose()} is called
+	 */
+	void drawFrame(byte[] indices, int x, int y, int width, int height, Palette colorPalette, int transparentIndex, int disposalMethod) {
+		if(!prepareArea(x, y, width, height, disposalMethod)) return;
+
+		draw(pixels, colorPalette.getLookupTable(transparentIndex), indices, x, y, width, height);
+		markDirty(areaX, areaY, areaWidth, areaHeight);
+	}
+
+	/**
+	 * Draws the last frame drawn once more, with a new disposal method. Since the canvas
+	 * already shows the frame, only the disposal area is set up. The disposal method of
+	 * the last frame drawn must have left the canvas as it was.
+	 */
+	void redrawFrame(int x, int y, int width, int height, int disposalMethod) {
+		prepareArea(x, y, width, height, disposalMethod);
+	}
+
+	// Sets the area of a frame about to be drawn and saves what is under it if the disposal
+	// method asks for it. Returns false if the frame is outside of the canvas.
+	private boolean prepareArea(int x, int y, int width, int height, int disposalMethod) {
+		// Clip to the canvas
+		int x0 = Math.max(x, 0);
+		int y0 = Math.max(y, 0);
+		int x1 = Math.min(x + width, canvasWidth);
+		int y1 = Math.min(y + height, canvasHeight);
+
+		areaX = x0;
+		areaY = y0;
+		areaWidth = Math.max(x1 - x0, 0);
+		areaHeight = Math.max(y1 - y0, 0);
+		this.disposalMethod = disposalMethod;
+
+		if(areaWidth == 0 || areaHeight == 0) { // Nothing to draw or dispose of
+			areaWidth = areaHeight = 0;
+			return false;
+		}
+
+		if(disposalMethod == GIFFrame.DISPOSAL_RESTORE_TO_PREVIOUS) {
+			int size = areaWidth*areaHeight;
+			if(backup.length < size) backup = new int[size];
+			for(int row = 0, index = y0*canvasWidth + x0; row < areaHeight; row++, index += canvasWidth)
+				System.arraycopy(pixels, index, backup, row*areaWidth, areaWidth);
+		}
+
+		return true;
+	}
+
+	// Draws the color indices onto the target through the lookup table, 0 means skip,
+	// clipped to the canvas
+	private void draw(int[] target, int[] lut, byte[] indices, int x, int y, int width, int height) {
+		int x0 = Math.max(x, 0);
+		int y0 = Math.max(y, 0);
+		int x1 = Math.min(x + width, canvasWidth);
+		int y1 = Math.min(y + height, canvasHeight);
+
+		if(x1 <= x0) return;
+
+		for(int row = y0; row < y1; row++)
+			blender.blend(lut, indices, (row - y)*width + (x0 - x), target, row*canvasWidth + x0, x1 - x0);
+	}
+
+	/**
+	 * Clears the canvas and forgets about the last frame drawn.
+	 */
+	void clear() {
+		Arrays.fill(pixels, 0);
+		disposalMethod = GIFFrame.DISPOSAL_UNSPECIFIED;
+		previous = null;
+		markDirty(0, 0, canvasWidth, canvasHeight);
+	}
+
+	/**
+	 * Finds the smallest rectangle containing all the pixels which changed since the
+	 * previous call. The first call after the compositor is created or cleared reports
+	 * the whole canvas.
+	 *
+	 * @param bounds set to the rectangle found, empty if nothing changed
+	 * @return the pixels of the rectangle row by row, a new array
+	 */
+	int[] diff(Rectangle bounds) {
+		if(previous == null) {
+			previous = pixels.clone();
+			dirtyX0 = dirtyX1 = 0;
+			bounds.setBounds(0, 0, canvasWidth, canvasHeight);
+			return pixels.clone();
+		}
+
+		if(dirtyX0 >= dirtyX1) { // Nothing drawn or disposed of
+			bounds.setBounds(0, 0, 0, 0);
+			return new int[0];
+		}
+
+		final int[] pixels = this.pixels;
+		final int[] previous = this.previous;
+		int x0 = dirtyX1, y0 = dirtyY1, x1 = dirtyX0, y1 = dirtyY0; // Empty to start with
+
+		for(int row = dirtyY0; row < dirtyY1; row++) {
+			int start = row*canvasWidth;
+			int left = start + dirtyX0;
+			int right = start + dirtyX1 - 1;
+			while(left <= right && pixels[left] == previous[left]) left++;
+			if(left > right) continue; // Row unchanged
+			while(pixels[right] == previous[right]) right--;
+			if(row < y0) y0 = row;
+			y1 = row + 1;
+			x0 = Math.min(x0, left - start);
+			x1 = Math.max(x1, right - start + 1);
+		}
+
+		dirtyX0 = dirtyX1 = 0;
+
+		if(x0 >= x1) {
+			bounds.setBounds(0, 0, 0, 0);
+			return new int[0];
+		}
+
+		int width = x1 - x0;
+		int[] changed = new int[width*(y1 - y0)];
+		for(int row = y0, index = y0*canvasWidth + x0; row < y1; row++, index += canvasWidth) {
+			System.arraycopy(pixels, index, changed, (row - y0)*width, width);
+			System.arraycopy(pixels, index, previous, index, width);
+		}
+		bounds.setBounds(x0, y0, width, y1 - y0);
+
+		return changed;
+	}
+
+	/**
+	 * Copies the canvas into the array which must be at least canvas width * canvas height long.
+	 */
+	void copyCanvas(int[] dest) {
+		System.arraycopy(pixels, 0, dest, 0, pixels.length);
+	}
+
+	BufferedImage getCanvas() {
+		return canvas;
+	}
+
+	int getCanvasHeight() {
+		return canvasHeight;
+	}
+
+	int getCanvasWidth() {
+		return canvasWidth;
+	}
+
+	/**
+	 * Replaces the canvas content with a copy previously made by {@link #copyCanvas(int[])}.
+	 */
+	void restoreCanvas(int[] src) {
+		System.arraycopy(src, 0, pixels, 0, pixels.length);
+		disposalMethod = GIFFrame.DISPOSAL_UNSPECIFIED;
+		markDirty(0, 0, canvasWidth, canvasHeight);
+	}
+
+	// Adds an area to the dirty rectangle
+	private void markDirty(int x, int y, int width, int height) {
+		if(width <= 0 || height <= 0) return;
+		if(dirtyX0 >= dirtyX1) {
+			dirtyX0 = x;
+			dirtyY0 = y;
+			dirtyX1 = x + width;
+			dirtyY1 = y + height;
+		} else {
+			dirtyX0 = Math.min(dirtyX0, x);
+			dirtyY0 = Math.min(dirtyY0, y);
+			dirtyX1 = Math.max(dirtyX1, x + width);
+			dirtyY1 = Math.max(dirtyY1, y + height);
+		}
+	}
+
+	/**
+	 * Draws a frame onto a copy of the canvas leaving the canvas itself untouched.
+	 *
+	 * @return the copy
+	 */
+	BufferedImage preview(byte[] indices, int x, int y, int width, int height, Palette colorPalette, int transparentIndex) {
+		BufferedImage copy = snapshot();
+		draw(((DataBufferInt)copy.getRaster().getDataBuffer()).getData(), colorPalette.getLookupTable(transparentIndex), indices, x, y, width, height);
+		return copy;
+	}
+
+	/**
+	 * Compares the area changed since the previous call, or since the last {@link #diff(Rectangle)},
+	 * with an earlier copy of the canvas and starts over with an empty changed area.
+	 *
+	 * @param copy a copy made by {@link #snapshot()} or null
+	 * @return true if the canvas looks the same as the copy
+	 */
+	boolean sameAs(BufferedImage copy) {
+		boolean same = (copy != null);
+		if(same && dirtyX0 < dirtyX1) {
+			int[] other = ((DataBufferInt)copy.getRaster().getDataBuffer()).getData();
+			int width = dirtyX1 - dirtyX0;
+			for(int row = dirtyY0, index = dirtyY0*canvasWidth + dirtyX0; row < dirtyY1 && same; row++, index += canvasWidth) {
+				for(int i = index, end = index + width; i < end; i++) {
+					if(pixels[i] != other[i]) {
+						same = false;
+						break;
+					}
+				}
+			}
+		}
+		dirtyX0 = dirtyX1 = 0;
+		return same;
+	}
+
+	/**
+	 * @return a copy of the canvas
+	 */
+	BufferedImage snapshot() {
+		BufferedImage copy = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+		System.arraycopy(pixels, 0, ((DataBufferInt)copy.getRaster().getDataBuffer()).getData(), 0, pixels.length);
+		return copy;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * FrameDelta.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Change of the logical screen from one composited frame to the next.
+ * <p>
+ * A delta holds the smallest rectangle of the logical screen containing all the pixels
+ * which differ from the previous composited frame, together with the ARGB pixels of
+ * that rectangle. This takes into account both the frame drawn and the area restored
+ * by the disposal of the previous frame. The first delta of an image covers the whole
+ * logical screen. Applying the deltas one after another to a canvas the size of the
+ * logical screen gives the frames produced by {@link AnimatedGIFReader#read(java.io.InputStream)}.
+ * <p>
+ * The pixels replace the ones of the canvas, they are not blended: a pixel restored
+ * to the background is transparent.
+ */
+public final class FrameDelta {
+	private final int left;
+	private final int top;
+	private final int width;
+	private final int height;
+	private final int[] pixels;
+	private final int delay;
+
+	FrameDelta(int left, int top, int width, int height, int[] pixels, int delay) {
+		this.left = left;
+		this.top = top;
+		this.width = width;
+		this.height = height;
+		this.pixels = pixels;
+		this.delay = delay;
+	}
+
+	/**
+	 * Copies the pixels of the delta into a canvas the size of the logical screen.
+	 *
+	 * @param canvas ARGB pixels of the canvas row by row
+	 * @param canvasWidth width of the canvas
+	 */
+	public void applyTo(int[] canvas, int canvasWidth) {
+		for(int row = 0, index = top*canvasWidth + left; row < height; row++, index += canvasWidth)
+			System.arraycopy(pixels, row*width, canvas, index, width);
+	}
+
+	/**
+	 * @return the delay of the frame in hundredths of a second
+	 */
+	public int getDelay() {
+		return delay;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return a new image of the changed rectangle or null if nothing changed
+	 */
+	public BufferedImage getImage() {
+		if(isEmpty()) return null;
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		image.getRaster().setDataElements(0, 0, width, height, pixels);
+		return image;
+	}
+
+	public int getLeftPosition() {
+		return left;
+	}
+
+	/**
+	 * @return the ARGB pixels of the changed rectangle row by row, the array itself
+	 *         which is not copied
+	 */
+	public int[] getPixels() {
+		return pixels;
+	}
+
+	public int getTopPosition() {
+		return top;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return true if the frame looks the same as the previous one
+	 */
+	public boolean isEmpty() {
+		return width == 0 || height == 0;
+	}
+}
@@ -13,6 +13,8 @@
  *
  * Who   Date       Description
  * ====  =========  ====================================================
+ * AG    16Oct2026  Dirty rectangle frame deltas
+ * AG    16Oct2026  Read from GIFSource
  * WY    08Oct2015  Initial creation
  */
 
@@ -29,13 +31,39 @@ public class FrameReader extends AnimatedGIFReader {
 		return (bi != null)?new GIFFrame(bi, image_x, image_y, delay, disposalMethod, userInputFlag, transparencyFlag, transparent_color):null;
 	}
 	
+	// Get the next frame as a GIFFrame
+	public GIFFrame getGIFFrame(GIFSource is) throws Exception {
+		BufferedImage bi = getFrameAsBufferedImage(is);
+		return (bi != null)?new GIFFrame(bi, image_x, image_y, delay, disposalMethod, userInputFlag, transparencyFlag, transparent_color):null;
+	}
+	
 	// Get the next frame as a GIFFrame
 	public GIFFrame getGIFFrameEx(InputStream is) throws Exception {
 		BufferedImage bi = getFrameAsBufferedImageEx(is);
 		return (bi != null)?new GIFFrame(bi, image_x, image_y, delay, disposalMethod, userInputFlag, transparencyFlag, transparent_color):null;
 	}
 	
+	// Get the next frame as a GIFFrame
+	public GIFFrame getGIFFrameEx(GIFSource is) throws Exception {
+		BufferedImage bi = getFrameAsBufferedImageEx(is);
+		return (bi != null)?new GIFFrame(bi, image_x, image_y, delay, disposalMethod, userInputFlag, transparencyFlag, transparent_color):null;
+	}
+	
+	// Get the change of the logical screen brought about by the next frame
+	public FrameDelta getFrameDelta(InputStream is) throws Exception {
+		return super.getFrameDelta(is);
+	}
+	
+	// Get the change of the logical screen brought about by the next frame
+	public FrameDelta getFrameDelta(GIFSource is) throws Exception {
+		return super.getFrameDelta(is);
+	}
+	
 	public BufferedImage read(InputStream is) throws Exception {
 		return null; // NOOP
 	}
+	
+	public BufferedImage read(GIFSource is) throws Exception {
+		return null; // NOOP
+	}
 }
\ No newline at end of file
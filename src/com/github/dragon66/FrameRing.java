@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * FrameRing.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed number of logical screen canvases composited frames are delivered into by a
+ * {@link PipelinedGIFReader}.
+ * <p>
+ * The canvases are allocated once, on the first frame, and reused for every frame and
+ * every image of the same logical screen size. A frame taken with {@link #take()} keeps
+ * its canvas until it is {@link #release(Slot) released}. When all the canvases are
+ * taken, the reader waits, so a slow consumer holds back the decoding instead of
+ * letting frames pile up. Each canvas is only ever in one place, the reader, the queue
+ * of the composited frames or the consumer, and a frame can only be released once.
+ */
+public class FrameRing {
+	private List<Slot> slots = new ArrayList<Slot>();
+	private ArrayDeque<Slot> free = new ArrayDeque<Slot>();
+	private ArrayDeque<Slot> full = new ArrayDeque<Slot>();
+	private Throwable error;
+	private boolean ended;
+	// Incremented for every image so the canvases acquired for the previous one are not
+	// published as frames of the new one
+	private int generation;
+
+	/**
+	 * @param capacity number of canvases
+	 */
+	public FrameRing(int capacity) {
+		if(capacity < 1)
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		for(int i = 0; i < capacity; i++)
+			slots.add(new Slot());
+		open();
+	}
+
+	// Gives back a canvas acquired but not published
+	synchronized void abandon(Slot slot) {
+		if(slot.state == Slot.ACQUIRED) {
+			slot.state = Slot.FREE;
+			free.add(slot);
+			notifyAll();
+		}
+	}
+
+	// Waits for a free canvas for a frame of the image opened as the given generation
+	synchronized Slot acquire(int generation) throws InterruptedException {
+		while(free.isEmpty() && generation == this.generation)
+			wait();
+		if(generation != this.generation)
+			throw new InterruptedException("Ring opened for another image");
+		Slot slot = free.poll();
+		slot.state = Slot.ACQUIRED;
+		slot.generation = generation;
+		return slot;
+	}
+
+	// Signals the end of the frames of the image opened as the given generation
+	synchronized void end(int generation) {
+		if(generation == this.generation) {
+			ended = true;
+			notifyAll();
+		}
+	}
+
+	// Ends the frames of the image opened as the given generation with an error
+	synchronized void fail(int generation, Throwable t) {
+		if(generation == this.generation && error == null) error = t;
+		end(generation);
+	}
+
+	public int getCapacity() {
+		return slots.size();
+	}
+
+	// Makes the canvases available for a new image. The ones still taken by the consumer
+	// come back when they are released and the ones acquired by a reader of the previous
+	// image when it publishes them.
+	//
+	// Returns the generation the reader of the new image passes back to the ring
+	synchronized int open() {
+		generation++;
+		free.clear();
+		full.clear();
+		for(Slot slot : slots) {
+			if(slot.state == Slot.FREE || slot.state == Slot.PUBLISHED) {
+				slot.state = Slot.FREE;
+				free.add(slot);
+			}
+		}
+		error = null;
+		ended = false;
+		notifyAll();
+		return generation;
+	}
+
+	// Hands a composited frame over to the consumer
+	synchronized void publish(Slot slot) {
+		if(slot.generation != generation) { // Frame of a previous image
+			slot.state = Slot.FREE;
+			free.add(slot);
+		} else {
+			slot.state = Slot.PUBLISHED;
+			full.add(slot);
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Gives the canvas of a frame back to the ring. The frame must not be used afterwards.
+	 *
+	 * @throws IllegalArgumentException if the frame was not taken from this ring or was
+	 *         already released
+	 */
+	public synchronized void release(Slot slot) {
+		if(!slots.contains(slot))
+			throw new IllegalArgumentException("Slot not taken from this ring");
+		if(slot.state != Slot.TAKEN)
+			throw new IllegalArgumentException("Slot already released");
+		slot.state = Slot.FREE;
+		free.add(slot);
+		notifyAll();
+	}
+
+	/**
+	 * Waits for the next composited frame.
+	 *
+	 * @return the next frame or null if there are no more frames
+	 * @throws Exception the error which stopped the reader if any
+	 */
+	public synchronized Slot take() throws Exception {
+		while(full.isEmpty() && !ended)
+			wait();
+		Slot slot = full.poll();
+		if(slot == null) {
+			Throwable t = error;
+			if(t instanceof Exception) throw (Exception)t;
+			if(t instanceof Error) throw (Error)t;
+			return null;
+		}
+		slot.state = Slot.TAKEN;
+		return slot;
+	}
+
+	/**
+	 * A canvas of the ring holding a composited frame.
+	 */
+	public static final class Slot {
+		// Where the canvas is, guarded by the ring
+		private static final int FREE = 0;
+		private static final int ACQUIRED = 1;
+		private static final int PUBLISHED = 2;
+		private static final int TAKEN = 3;
+
+		private int state;
+		private int generation;
+		private BufferedImage image;
+		private int[] pixels;
+		private int frameIndex;
+		private GIFIndex.Entry entry;
+
+		private Slot() {}
+
+		// Gets the pixels of the canvas making sure it is the given size
+		int[] canvas(int width, int height) {
+			if(image == null || image.getWidth() != width || image.getHeight() != height) {
+				image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+				pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+			}
+			return pixels;
+		}
+
+		void set(int frameIndex, GIFIndex.Entry entry) {
+			this.frameIndex = frameIndex;
+			this.entry = entry;
+		}
+
+		/**
+		 * @return the delay of the frame in hundredths of a second
+		 */
+		public int getDelay() {
+			return entry.getDelay();
+		}
+
+		/**
+		 * @return the descriptor and graphic control parameters of the frame
+		 */
+		public GIFIndex.Entry getEntry() {
+			return entry;
+		}
+
+		/**
+		 * @return zero based index of the frame in the image
+		 */
+		public int getFrameIndex() {
+			return frameIndex;
+		}
+
+		/**
+		 * @return the canvas the size of the logical screen, only valid until the slot is released
+		 */
+		public BufferedImage getImage() {
+			return image;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * FrameStats.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Decoding statistics of a single frame reported to {@link DecodeMetrics}.
+ * <p>
+ * Times are in nanoseconds. The number of bytes allocated is measured on the decoding
+ * thread from the start to the end of the frame and is -1 if the JVM cannot tell.
+ */
+public final class FrameStats {
+	private static final com.sun.management.ThreadMXBean THREAD_BEAN;
+
+	static {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean threadBean = null;
+		if(bean instanceof com.sun.management.ThreadMXBean) {
+			threadBean = (com.sun.management.ThreadMXBean)bean;
+			if(!threadBean.isThreadAllocatedMemorySupported() || !threadBean.isThreadAllocatedMemoryEnabled())
+				threadBean = null;
+		}
+		THREAD_BEAN = threadBean;
+	}
+
+	int frameIndex;
+	int width;
+	int height;
+	boolean interlaced;
+	int disposalMethod;
+	long decodeNanos;
+	long compositeNanos;
+	long compressedBytes;
+	long decompressedBytes;
+	int codeCount;
+	int clearCodeCount;
+	int tableFullCount;
+	long allocatedBytes = -1;
+
+	FrameStats() {}
+
+	// Bytes allocated by the current thread so far or -1 if not supported
+	static long allocatedBytes() {
+		if(THREAD_BEAN == null) return -1;
+		return THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// Records the LZW statistics of the decoder
+	void recordDecoder(LZWTreeDecoder decoder) {
+		codeCount += decoder.getCodeCount();
+		clearCodeCount += decoder.getClearCodeCount();
+		tableFullCount += decoder.getTableFullCount();
+	}
+
+	/**
+	 * @return the number of bytes allocated by the decoding thread while the frame was
+	 *         read or -1 if not supported by the JVM
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * @return the number of LZW clear codes
+	 */
+	public int getClearCodeCount() {
+		return clearCodeCount;
+	}
+
+	/**
+	 * @return the number of LZW codes, the clear and end of image codes included
+	 */
+	public int getCodeCount() {
+		return codeCount;
+	}
+
+	/**
+	 * @return time spent drawing the frame onto the logical screen, copying the result and
+	 *         applying the disposal method or 0 if the frame was not composited
+	 */
+	public long getCompositeNanos() {
+		return compositeNanos;
+	}
+
+	/**
+	 * @return the number of bytes of the image data: LZW minimum code size, sub-blocks and block terminator
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes;
+	}
+
+	/**
+	 * @return time spent reading the frame header and color table and LZW decoding the image data
+	 */
+	public long getDecodeNanos() {
+		return decodeNanos;
+	}
+
+	/**
+	 * @return the number of color indices decoded, width*height of the frame
+	 */
+	public long getDecompressedBytes() {
+		return decompressedBytes;
+	}
+
+	public int getDisposalMethod() {
+		return disposalMethod;
+	}
+
+	/**
+	 * @return zero based index of the frame in the image
+	 */
+	public int getFrameIndex() {
+		return frameIndex;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return the number of times the LZW string table filled up to 4096 entries
+	 */
+	public int getTableFullCount() {
+		return tableFullCount;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public boolean isInterlaced() {
+		return interlaced;
+	}
+
+	public String toString() {
+		return "frame " + frameIndex + " " + width + "x" + height + (interlaced? " interlaced" : "")
+				+ " decode " + decodeNanos + "ns composite " + compositeNanos + "ns disposal " + disposalMethod
+				+ " compressed " + compressedBytes + " decompressed " + decompressedBytes
+				+ " codes " + codeCount + " clear " + clearCodeCount + " table full " + tableFullCount
+				+ " allocated " + allocatedBytes;
+	}
+}
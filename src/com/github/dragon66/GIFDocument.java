@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFDocument.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Immutable parsed GIF/animated GIF which can be shared between threads.
+ * <p>
+ * A document is parsed once and keeps a read-only view of the image bytes together
+ * with the {@link GIFIndex} of the image, i.e., the header, the global palette and
+ * the descriptor, graphic control parameters and data offsets of each frame. Neither
+ * is modified afterwards. Decoding happens in lightweight per-thread contexts
+ * obtained from {@link #newReader()}, each with its own position in the bytes, LZW
+ * decoder and compositor:
+ * <pre>
+ * {@code
+ * GIFDocument doc = GIFDocument.parse(new File(pathToImage)); // Once, shared
+ * ...
+ * try(RandomAccessGIFReader reader = doc.newReader()) { // Per thread
+ * 	BufferedImage frame = reader.getCompositeFrame(i);
+ * }
+ * }
+ * </pre>
+ */
+public final class GIFDocument {
+	private final ByteBuffer data;
+	private final GIFIndex index;
+
+	private GIFDocument(ByteBuffer data, GIFIndex index) {
+		this.data = data;
+		this.index = index;
+	}
+
+	/**
+	 * @param data GIF bytes, the array must not be modified afterwards
+	 * @return the document or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFDocument parse(byte[] data) throws Exception {
+		return parse(ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Parses the remaining bytes of the buffer. The buffer itself is not modified but its
+	 * content must not be modified afterwards.
+	 *
+	 * @return the document or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFDocument parse(ByteBuffer buf) throws Exception {
+		ByteBuffer data = buf.slice().asReadOnlyBuffer();
+		GIFIndex index = GIFIndex.build(GIFSource.wrap(data));
+		if(index == null) return null;
+		return new GIFDocument(data, index);
+	}
+
+	/**
+	 * Maps the file into memory. The mapping stays valid after the file is closed.
+	 *
+	 * @return the document or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFDocument parse(File file) throws Exception {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Reads the stream to the end. The stream is not closed.
+	 *
+	 * @return the document or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFDocument parse(InputStream is) throws Exception {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		int count = 0;
+		while((count = is.read(buf)) >= 0)
+			bout.write(buf, 0, count);
+
+		return parse(bout.toByteArray());
+	}
+
+	public int getFrameCount() {
+		return index.getFrameCount();
+	}
+
+	public GIFIndex getIndex() {
+		return index;
+	}
+
+	public int getLogicalScreenHeight() {
+		return index.getLogicalScreenHeight();
+	}
+
+	public int getLogicalScreenWidth() {
+		return index.getLogicalScreenWidth();
+	}
+
+	/**
+	 * @return the size of the image in bytes
+	 */
+	public int getSize() {
+		return data.limit();
+	}
+
+	/**
+	 * @return a new seekable source over the bytes of the document positioned at the start
+	 */
+	public GIFSource newSource() {
+		return GIFSource.wrap(data.duplicate());
+	}
+
+	/**
+	 * Creates a decoding context for the document. The context is not thread safe and
+	 * should be confined to one thread, but any number of them can be used concurrently.
+	 */
+	public RandomAccessGIFReader newReader() {
+		return new RandomAccessGIFReader(newSource(), index);
+	}
+}
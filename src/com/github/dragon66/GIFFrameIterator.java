@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFFrameIterator.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+/**
+ * Streams the frames of a GIF/animated GIF one at a time.
+ * <p>
+ * Unlike {@link AnimatedGIFReader#read(InputStream)} which keeps all the frames in
+ * memory, frames are decoded on demand and the iterator only holds on to the logical
+ * screen canvas needed for the disposal of the next frame and at most one frame read
+ * ahead by {@link #hasNext()}. Frames which are no longer referenced by the caller
+ * can be garbage collected.
+ * <p>
+ * Closing the iterator closes the underlying source:
+ * <pre>
+ * {@code
+ * try(GIFFrameIterator frames = new GIFFrameIterator(new FileInputStream(file))) {
+ * 	while(frames.hasNext())
+ * 		consume(frames.next());
+ * }
+ * }
+ * </pre>
+ * Errors while decoding are rethrown as {@link UncheckedIOException} for IOException
+ * and as RuntimeException otherwise.
+ */
+public class GIFFrameIterator implements Iterator<GIFFrame>, Closeable {
+	private FrameReader reader = new FrameReader();
+	private GIFSource source;
+	private boolean composite;
+	private GIFFrame next;
+	private boolean done;
+
+	/**
+	 * Creates an iterator of composited frames the same size as the logical screen.
+	 */
+	public GIFFrameIterator(InputStream is) {
+		this(GIFSource.wrap(is), true);
+	}
+
+	/**
+	 * Creates an iterator of composited frames the same size as the logical screen.
+	 */
+	public GIFFrameIterator(GIFSource source) {
+		this(source, true);
+	}
+
+	/**
+	 * @param source GIFSource for the GIF/Animated GIF
+	 * @param composite true to return frames composited the same way as
+	 *        {@link AnimatedGIFReader#getFrameAsBufferedImageEx(GIFSource)},
+	 *        false to return the frames as they are stored in the image like
+	 *        {@link AnimatedGIFReader#getFrameAsBufferedImage(GIFSource)}
+	 */
+	public GIFFrameIterator(GIFSource source, boolean composite) {
+		this.source = source;
+		this.composite = composite;
+	}
+
+	public void close() throws IOException {
+		done = true;
+		next = null;
+		source.close();
+	}
+
+	public boolean hasNext() {
+		if(next == null && !done) {
+			try {
+				next = composite? reader.getGIFFrameEx(source) : reader.getGIFFrame(source);
+			} catch(IOException ex) {
+				throw new UncheckedIOException(ex);
+			} catch(RuntimeException ex) {
+				throw ex;
+			} catch(Exception ex) {
+				throw new RuntimeException(ex);
+			}
+			done = (next == null);
+		}
+		return next != null;
+	}
+
+	public GIFFrame next() {
+		if(!hasNext()) throw new NoSuchElementException();
+		GIFFrame frame = next;
+		next = null; // Don't hold on to the frame
+		return frame;
+	}
+
+	public void remove() {
+		throw new UnsupportedOperationException("remove");
+	}
+
+	/**
+	 * @param limits resource limits checked while reading or null, the default, for none.
+	 *        A violation is thrown by {@link #hasNext()} as an UncheckedIOException.
+	 */
+	public void setDecodeLimits(DecodeLimits limits) {
+		reader.setDecodeLimits(limits);
+	}
+
+	/**
+	 * @return a sequential ordered Stream of the remaining frames which closes this iterator when closed
+	 */
+	public Stream<GIFFrame> stream() {
+		return StreamSupport.stream(spliterator(), false).onClose(new Runnable() {
+			public void run() {
+				try {
+					close();
+				} catch(IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}
+		});
+	}
+
+	public Spliterator<GIFFrame> spliterator() {
+		return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED|Spliterator.NONNULL);
+	}
+}
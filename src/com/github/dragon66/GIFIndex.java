@@ -0,0 +1,376 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFIndex.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+import com.github.dragon66.AnimatedGIFReader.GifHeader;
+
+/**
+ * Structural index of a GIF/animated GIF.
+ * <p>
+ * The index is built by walking the block structure of the image once: header,
+ * logical screen descriptor, extension blocks and image descriptors. The image
+ * data sub-blocks are skipped by length without being LZW decoded. For each frame
+ * the byte offsets of the image descriptor, the local color table and the image
+ * data are recorded together with the frame rectangle and the graphic control
+ * extension parameters so that any frame can later be decoded directly from a
+ * seekable {@link GIFSource}.
+ * <p>
+ * An index is not modified once built and can be shared between threads.
+ */
+public class GIFIndex {
+	private int logicalScreenWidth;
+	private int logicalScreenHeight;
+	private int backgroundColorIndex;
+	private int globalBitsPerPixel;
+	private Palette globalColorPalette;
+	private int loopCount = GIFMetadata.LOOP_COUNT_NONE;
+	private List<Entry> entries = new ArrayList<Entry>();
+
+	private GIFIndex() {}
+
+	/**
+	 * Builds the index from an input stream which is expected to point to the start of
+	 * the GIF header. All the offsets recorded are relative to that position.
+	 *
+	 * @param is InputStream for the GIF/Animated GIF
+	 * @return the index or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFIndex build(InputStream is) throws Exception {
+		return build(GIFSource.wrap(is));
+	}
+
+	/**
+	 * Builds the index from the current position of the source which is expected to point
+	 * to the start of the GIF header. The offsets recorded are positions of the source.
+	 * The source is read up to the trailer or the end of the source.
+	 *
+	 * @param is GIFSource for the GIF/Animated GIF
+	 * @return the index or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFIndex build(GIFSource is) throws Exception {
+		GIFIndex index = readHeader(is);
+
+		if(index == null) return null;
+
+		Entry entry = null;
+
+		while((entry = readEntry(is, index)) != null) {
+			if(entry.hasLocalPalette())
+				is.skipFully(3*(1<<entry.bitsPerPixel));
+			is.read(); // LZW minimum code size
+			skipSubBlocks(is);
+			entry.dataLength = (int)(is.position() - entry.dataOffset);
+			index.entries.add(entry);
+		}
+
+		return index;
+	}
+
+	public int getBackgroundColorIndex() {
+		return backgroundColorIndex;
+	}
+
+	public Entry getEntry(int i) {
+		if(i < 0 || i >= entries.size())
+			throw new IndexOutOfBoundsException("Index: " + i);
+		return entries.get(i);
+	}
+
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	public int getFrameCount() {
+		return entries.size();
+	}
+
+	int getGlobalBitsPerPixel() {
+		return globalBitsPerPixel;
+	}
+
+	/**
+	 * @return a copy of the global color palette or null if there is no global color table
+	 */
+	public int[] getGlobalColorPalette() {
+		return (globalColorPalette != null)? globalColorPalette.colors().clone() : null;
+	}
+
+	Palette globalColorPalette() {
+		return globalColorPalette;
+	}
+
+	public int getLogicalScreenHeight() {
+		return logicalScreenHeight;
+	}
+
+	/**
+	 * @return the loop count of the NETSCAPE2.0 application extension read so far, 0 to loop
+	 *         forever or {@link GIFMetadata#LOOP_COUNT_NONE} if there is no such extension
+	 */
+	public int getLoopCount() {
+		return loopCount;
+	}
+
+	public int getLogicalScreenWidth() {
+		return logicalScreenWidth;
+	}
+
+	/**
+	 * Reads the global scope data only, the index returned has no entries. Frames can
+	 * then be read one at a time with {@link #readEntry(GIFSource, GIFIndex)}.
+	 *
+	 * @return the index or null if the input is not a GIF
+	 */
+	static GIFIndex readHeader(GIFSource is) throws Exception {
+		GIFIndex index = new GIFIndex();
+		return index.readGlobalScopeData(is)? index : null;
+	}
+
+	private boolean readGlobalScopeData(GIFSource is) throws Exception {
+		GifHeader gifHeader = new GifHeader();
+		gifHeader.readHeader(is);
+
+		String signature = new String(gifHeader.signature) + new String(gifHeader.version);
+
+		if ((!signature.equalsIgnoreCase("GIF87a")) && (!signature.equalsIgnoreCase("GIF89a")))
+			return false;
+
+		logicalScreenWidth = gifHeader.screen_width;
+		logicalScreenHeight = gifHeader.screen_height;
+		backgroundColorIndex = gifHeader.bgcolor&0xff;
+
+		byte flags = gifHeader.flags;
+
+		if((flags&0x80) == 0x80) { // A global color map is present
+			globalBitsPerPixel = (flags&0x07)+1;
+			globalColorPalette = Palette.of(AnimatedGIFReader.readColorPalette(is, 1<<globalBitsPerPixel));
+		}
+
+		return true;
+	}
+
+	/**
+	 * Reads the blocks of the next frame up to and including the image descriptor.
+	 * On return the source is positioned at the local color table if there is one or
+	 * the image data otherwise. The loop count of a NETSCAPE2.0 application extension
+	 * found on the way is recorded into the index.
+	 *
+	 * @param is GIFSource positioned after the global scope data or the previous frame
+	 * @param index index of the global scope data
+	 * @return the entry for the frame or null if there are no more frames
+	 * @throws Exception
+	 */
+	static Entry readEntry(GIFSource is, GIFIndex index) throws Exception {
+		Entry entry = new Entry();
+
+		int image_separator = 0;
+
+		do {
+			image_separator = is.read();
+
+			if(image_separator == -1 || image_separator == 0x3b) { // End of stream
+				return null;
+			}
+
+			if (image_separator == 0x21) // (!) Extension Block
+			{
+				int func = is.read();
+				int len = is.read();
+
+				if (func == 0xf9) { // Graphic Control Label - identifies the current block as a Graphic Control Extension
+					int packedFields = is.read();
+					// Determine the disposal method
+					entry.disposalMethod = ((packedFields&0x1c)>>2);
+					entry.userInputFlag =  ((packedFields&0x02)>>1);
+					entry.delay = is.readUnsignedShort();
+					// Read transparent color index
+					int transparent_color_index = is.read();
+					// Check for transparent color flag
+					if((packedFields&0x01) == 0x01){
+						entry.transparencyFlag = GIFFrame.TRANSPARENCY_INDEX_SET;
+						entry.transparentColor = transparent_color_index;
+					}
+					len = is.read();// len=0, block terminator!
+				} else if (func == 0xff && len == 11) { // Application Extension
+					byte[] identifier = new byte[11];
+					is.readFully(identifier);
+					String application = new String(identifier, "US-ASCII");
+					len = is.read();
+					if ((application.equals("NETSCAPE2.0") || application.equals("ANIMEXTS1.0")) && len >= 3) {
+						int subBlockId = is.read()&0x07;
+						int loopCount = is.readUnsignedShort();
+						if(subBlockId == 1) // Looping sub-block
+							index.loopCount = loopCount;
+						is.skipFully(len - 3);
+						len = is.read();
+					}
+				}
+				// GIF87a specification mentions the repetition of multiple length
+				// blocks while GIF89a gives no specific description. For safety, here
+				// a while loop is used to check for block terminator!
+				while(len > 0) {
+					is.skipFully(len);
+					len = is.read();// len=0, block terminator!
+				}
+			}
+		} while(image_separator != 0x2c); // ","
+
+		entry.offset = is.position() - 1;
+
+		byte ides[] = new byte[9];
+		is.readFully(ides,0,9);
+
+		entry.left = (ides[0]&0xff)|((ides[1]&0xff)<<8);
+		entry.top = (ides[2]&0xff)|((ides[3]&0xff)<<8);
+		entry.width = (ides[4]&0xff)|((ides[5]&0xff)<<8);
+		entry.height = (ides[6]&0xff)|((ides[7]&0xff)<<8);
+
+		int flags2 = ides[8];
+
+		entry.interlaced = ((flags2&0x40) == 0x40);
+		entry.dataOffset = is.position();
+
+		if((flags2&0x80) == 0x80) { // A local color map is present
+			entry.bitsPerPixel = (flags2&0x07)+1;
+			entry.paletteOffset = is.position();
+			entry.dataOffset += 3*(1<<entry.bitsPerPixel);
+		} else
+			entry.bitsPerPixel = index.globalBitsPerPixel;
+
+		return entry;
+	}
+
+	// Skips data sub-blocks up to and including the block terminator
+	static void skipSubBlocks(GIFSource is) throws Exception {
+		int len = is.read();
+
+		while(len > 0) {
+			is.skipFully(len);
+			len = is.read();
+		}
+	}
+
+	/**
+	 * Structural information of a single frame as recorded by the index pass.
+	 */
+	public static class Entry {
+		// Image descriptor
+		private long offset;
+		private int left;
+		private int top;
+		private int width;
+		private int height;
+		private boolean interlaced;
+		// Color table
+		private int bitsPerPixel;
+		private long paletteOffset = -1; // -1 means using global color table
+		// Image data - LZW minimum code size followed by sub-blocks and the block terminator
+		private long dataOffset;
+		private int dataLength;
+		// Graphic control extension
+		private int disposalMethod = GIFFrame.DISPOSAL_UNSPECIFIED;
+		private int userInputFlag = GIFFrame.USER_INPUT_NONE;
+		private int transparencyFlag = GIFFrame.TRANSPARENCY_INDEX_NONE;
+		private int transparentColor = GIFFrame.TRANSPARENCY_COLOR_NONE;
+		private int delay;
+
+		private Entry() {}
+
+		public int getBitsPerPixel() {
+			return bitsPerPixel;
+		}
+
+		public int getDataLength() {
+			return dataLength;
+		}
+
+		public long getDataOffset() {
+			return dataOffset;
+		}
+
+		public int getDelay() {
+			return delay;
+		}
+
+		public int getDisposalMethod() {
+			return disposalMethod;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		public int getLeftPosition() {
+			return left;
+		}
+
+		/**
+		 * @return the offset of the image descriptor of this frame
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * @return the offset of the local color table or -1 if the frame uses the global color table
+		 */
+		public long getPaletteOffset() {
+			return paletteOffset;
+		}
+
+		public int getTopPosition() {
+			return top;
+		}
+
+		/**
+		 * @return the transparent color index or {@link GIFFrame#TRANSPARENCY_COLOR_NONE} if not set
+		 */
+		public int getTransparentColor() {
+			return transparentColor;
+		}
+
+		public int getTransparencyFlag() {
+			return transparencyFlag;
+		}
+
+		public int getUserInputFlag() {
+			return userInputFlag;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public boolean hasLocalPalette() {
+			return paletteOffset >= 0;
+		}
+
+		public boolean isInterlaced() {
+			return interlaced;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFMetadata.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Metadata of a GIF/animated GIF probed without decoding any pixels.
+ * <p>
+ * Probing reads the header, the logical screen descriptor, the extension blocks and
+ * the image descriptors only. The color tables and the image data sub-blocks are
+ * skipped by length, so probing runs at I/O speed:
+ * <pre>
+ * {@code
+ * GIFMetadata metadata = GIFMetadata.probe(new FileInputStream(file));
+ * if(metadata == null || metadata.getFrameCount() > MAX_FRAMES || metadata.getDuration() > MAX_DURATION)
+ * 	reject(file);
+ * }
+ * </pre>
+ * Delays are in hundredths of a second as stored in the graphic control extensions.
+ */
+public final class GIFMetadata {
+	/** No NETSCAPE2.0 application extension, the animation is played once */
+	public static final int LOOP_COUNT_NONE = -1;
+	/** The animation loops forever */
+	public static final int LOOP_COUNT_FOREVER = 0;
+
+	private final GIFIndex index;
+	private final int totalDelay;
+
+	private GIFMetadata(GIFIndex index) {
+		int totalDelay = 0;
+		for(GIFIndex.Entry entry : index.getEntries())
+			totalDelay += entry.getDelay();
+		this.index = index;
+		this.totalDelay = totalDelay;
+	}
+
+	/**
+	 * Probes a memory-mapped file.
+	 *
+	 * @return the metadata or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFMetadata probe(File file) throws Exception {
+		GIFSource source = GIFSource.map(file);
+		try {
+			return probe(source);
+		} finally {
+			source.close();
+		}
+	}
+
+	/**
+	 * Probes the stream which is expected to point to the start of the GIF header. The
+	 * stream is read up to the trailer but not closed.
+	 *
+	 * @return the metadata or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFMetadata probe(InputStream is) throws Exception {
+		return probe(GIFSource.wrap(is));
+	}
+
+	/**
+	 * @return the metadata or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFMetadata probe(GIFSource is) throws Exception {
+		return probe(is, null);
+	}
+
+	/**
+	 * Same as {@link #probe(GIFSource)} reporting the time spent to the metrics if not null.
+	 *
+	 * @return the metadata or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public static GIFMetadata probe(GIFSource is, DecodeMetrics metrics) throws Exception {
+		long start = (metrics != null)? System.nanoTime() : 0;
+		long position = is.position();
+		GIFIndex index = GIFIndex.build(is);
+		if(metrics != null)
+			metrics.probed(System.nanoTime() - start, is.position() - position, (index != null)? index.getFrameCount() : 0);
+		if(index == null) return null;
+		return new GIFMetadata(index);
+	}
+
+	/**
+	 * @return the total play time of one loop in milliseconds
+	 */
+	public long getDuration() {
+		return 10L*totalDelay;
+	}
+
+	public int getFrameCount() {
+		return index.getFrameCount();
+	}
+
+	/**
+	 * @return the descriptor, graphic control parameters and interlace flag of each frame
+	 */
+	public List<GIFIndex.Entry> getFrames() {
+		return index.getEntries();
+	}
+
+	public int getLogicalScreenHeight() {
+		return index.getLogicalScreenHeight();
+	}
+
+	public int getLogicalScreenWidth() {
+		return index.getLogicalScreenWidth();
+	}
+
+	/**
+	 * @return the number of times to repeat the animation, {@link #LOOP_COUNT_FOREVER}
+	 *         or {@link #LOOP_COUNT_NONE}
+	 */
+	public int getLoopCount() {
+		return index.getLoopCount();
+	}
+
+	/**
+	 * @return the sum of the frame delays in hundredths of a second
+	 */
+	public int getTotalDelay() {
+		return totalDelay;
+	}
+
+	public boolean hasGlobalColorTable() {
+		return index.globalColorPalette() != null;
+	}
+}
@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFPushParser.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+/**
+ * Non-blocking GIF/animated GIF parser which is fed the image bytes as they arrive.
+ * <p>
+ * Bytes are pushed in chunks of any size with {@link #feed(ByteBuffer)} and each frame
+ * is handed over to the {@link Listener} as soon as its last image data sub-block is
+ * fed. The parser is a state machine over the header, extension, image descriptor and
+ * sub-block stages. Only the small blocks the frames depend on (header, color tables,
+ * graphic control and NETSCAPE2.0/ANIMEXTS1.0 application extensions, image descriptors)
+ * are buffered until complete. Other extensions are skipped as they stream and the image
+ * data is LZW decoded straight from the chunks by a push mode {@link LZWTreeDecoder}, so
+ * no thread ever blocks waiting for input and the image is never buffered as a whole:
+ * <pre>
+ * {@code
+ * GIFPushParser parser = new GIFPushParser(frame -> send(frame));
+ * // For each chunk read from a non-blocking channel
+ * parser.feed(chunk);
+ * // At the end of the input
+ * parser.end();
+ * }
+ * </pre>
+ * The frames are the same as the ones produced by {@link AnimatedGIFReader#read(java.io.InputStream)}
+ * or, if not composited, by {@link AnimatedGIFReader#getFrameAsBufferedImage(GIFSource)}.
+ * <p>
+ * Instances of this class are not thread safe, chunks have to be fed in order.
+ */
+public class GIFPushParser {
+	// Parser states
+	private static final int HEADER = 0;
+	private static final int GLOBAL_PALETTE = 1;
+	private static final int BLOCK = 2;
+	private static final int EXTENSION_LABEL = 3;
+	private static final int EXTENSION_LENGTH = 4;
+	private static final int EXTENSION_DATA = 5;
+	private static final int IMAGE_DESCRIPTOR = 6;
+	private static final int LOCAL_PALETTE = 7;
+	private static final int MIN_CODE_SIZE = 8;
+	private static final int DATA_LENGTH = 9;
+	private static final int DATA = 10;
+	private static final int DONE = 11;
+
+	private Listener listener;
+	private boolean composite;
+	private DecodeLimits limits;
+	private DecodeLimits.Usage usage;
+
+	private int state = HEADER;
+	private int needed = 13; // Bytes still needed to complete the current stage
+	// Bytes of the current stage which are parsed once complete
+	private byte[] pending = new byte[256];
+	private int pendingLength;
+	private boolean keepExtension;
+	private int extensionStart; // Offset of the buffered extension
+	private int keepBlocks; // Sub-blocks of the extension still to be buffered
+
+	private GIFIndex header;
+	private int frameCount;
+	// Current frame
+	private GIFIndex.Entry entry;
+	private Palette colorPalette;
+	private LZWTreeDecoder decoder;
+	private byte[] pixels;
+	private int frameSize;
+	private int decoded;
+
+	private FrameCompositor compositor;
+
+	/**
+	 * Receives the frames as soon as they are decoded.
+	 */
+	public interface Listener {
+		void onFrame(GIFFrame frame);
+	}
+
+	/**
+	 * Creates a parser producing composited frames the same size as the logical screen.
+	 */
+	public GIFPushParser(Listener listener) {
+		this(listener, true);
+	}
+
+	/**
+	 * @param listener receives the frames
+	 * @param composite true for composited frames, false for the frames as they are stored in the image
+	 */
+	public GIFPushParser(Listener listener, boolean composite) {
+		this.listener = listener;
+		this.composite = composite;
+	}
+
+	// Appends up to n bytes from the chunk to the pending bytes and returns the number of bytes appended
+	private int append(ByteBuffer chunk, int n) {
+		n = Math.min(n, chunk.remaining());
+		if(pendingLength + n > pending.length)
+			pending = Arrays.copyOf(pending, Math.max(pendingLength + n, pending.length<<1));
+		chunk.get(pending, pendingLength, n);
+		pendingLength += n;
+		return n;
+	}
+
+	private void append(int b) {
+		if(pendingLength == pending.length)
+			pending = Arrays.copyOf(pending, pending.length<<1);
+		pending[pendingLength++] = (byte)b;
+	}
+
+	/**
+	 * Signals the end of the input. A frame whose image data has been partly fed is
+	 * handed over with the missing pixels set to color index 0.
+	 *
+	 * @throws Exception
+	 */
+	public void end() throws Exception {
+		boolean truncated = (state == DATA_LENGTH || state == DATA);
+		state = DONE;
+		pending = null;
+		if(truncated) frameComplete();
+	}
+
+	/**
+	 * Parses the remaining bytes of the chunk. The frames completed by the chunk are handed
+	 * over to the listener before this method returns. The chunk is not kept, it can be
+	 * reused once this method returns.
+	 *
+	 * @throws IOException if the input is not a GIF
+	 * @throws Exception
+	 */
+	public void feed(ByteBuffer chunk) throws Exception {
+		while(chunk.hasRemaining() && state != DONE) {
+			switch(state) {
+				case HEADER:
+					if((needed -= append(chunk, needed)) > 0) break;
+					int flags = pending[10];
+					if((flags&0x80) == 0x80) { // A global color map is present
+						needed = 3*(1<<((flags&0x07) + 1));
+						state = GLOBAL_PALETTE;
+					} else
+						headerComplete();
+					break;
+				case GLOBAL_PALETTE:
+					if((needed -= append(chunk, needed)) == 0)
+						headerComplete();
+					break;
+				case BLOCK:
+					int separator = chunk.get()&0xff;
+					if(separator == 0x21) { // (!) Extension Block
+						state = EXTENSION_LABEL;
+					} else if(separator == 0x2c) { // Image descriptor
+						append(separator);
+						needed = 9;
+						state = IMAGE_DESCRIPTOR;
+					} else if(separator == 0x3b) // Trailer
+						state = DONE;
+					break;
+				case EXTENSION_LABEL:
+					int label = chunk.get()&0xff;
+					// Only the graphic control extension and the identifier and loop sub-blocks
+					// of an application extension are needed
+					keepBlocks = (label == 0xf9)? 1 : (label == 0xff)? 2 : 0;
+					keepExtension = (keepBlocks > 0);
+					if(keepExtension) {
+						extensionStart = pendingLength;
+						append(0x21);
+						append(label);
+					}
+					state = EXTENSION_LENGTH;
+					break;
+				case EXTENSION_LENGTH:
+					int len = chunk.get()&0xff;
+					if(len == 0) {
+						if(keepExtension) append(len);
+						state = BLOCK;
+					} else {
+						if(keepBlocks > 0) append(len);
+						needed = len;
+						state = EXTENSION_DATA;
+					}
+					break;
+				case EXTENSION_DATA:
+					int n = Math.min(needed, chunk.remaining());
+					if(keepBlocks > 0)
+						append(chunk, n);
+					else
+						chunk.position(chunk.position() + n);
+					if((needed -= n) == 0) {
+						if(keepBlocks > 0 && --keepBlocks > 0 && !isLoopExtension()) {
+							// Other application extensions are dropped
+							pendingLength = extensionStart;
+							keepExtension = false;
+							keepBlocks = 0;
+						}
+						state = EXTENSION_LENGTH;
+					}
+					break;
+				case IMAGE_DESCRIPTOR:
+					if((needed -= append(chunk, needed)) > 0) break;
+					int flags2 = pending[pendingLength - 1];
+					if((flags2&0x80) == 0x80) { // A local color map is present
+						needed = 3*(1<<((flags2&0x07) + 1));
+						state = LOCAL_PALETTE;
+					} else
+						frameHeaderComplete();
+					break;
+				case LOCAL_PALETTE:
+					if((needed -= append(chunk, needed)) == 0)
+						frameHeaderComplete();
+					break;
+				case MIN_CODE_SIZE:
+					BufferPool pool = BufferPool.get();
+					decoder = pool.takeDecoder(null, chunk.get()&0xff);
+					// Composited frames are drawn on the canvas, other frames keep their pixels
+					pixels = composite? pool.takeBytes(frameSize) : new byte[frameSize];
+					decoded = 0;
+					state = DATA_LENGTH;
+					break;
+				case DATA_LENGTH:
+					needed = chunk.get()&0xff;
+					if(needed == 0) { // Block terminator
+						state = BLOCK;
+						frameComplete();
+					} else
+						state = DATA;
+					break;
+				case DATA:
+					int count = Math.min(needed, chunk.remaining());
+					if(decoded < frameSize) {
+						ByteBuffer data = chunk.duplicate();
+						data.limit(data.position() + count);
+						if(entry.isInterlaced())
+							decodeInterlaced(data);
+						else
+							decoded += decoder.decode(data, pixels, decoded, frameSize - decoded);
+					}
+					chunk.position(chunk.position() + count);
+					if((needed -= count) == 0)
+						state = DATA_LENGTH;
+					break;
+			}
+		}
+	}
+
+	// Decodes the data row by row into the final place of each interlaced row
+	private void decodeInterlaced(ByteBuffer data) throws Exception {
+		int width = entry.getWidth();
+		int height = entry.getHeight();
+		while(decoded < frameSize) {
+			int column = decoded%width;
+			int offset = AnimatedGIFReader.interlacedRow(decoded/width, height)*width + column;
+			int count = decoder.decode(data, pixels, offset, width - column);
+			if(count == 0) break; // Out of data
+			decoded += count;
+		}
+	}
+
+	private void frameComplete() throws DecodeLimitException {
+		GIFIndex.Entry entry = this.entry;
+		int width = entry.getWidth();
+		int height = entry.getHeight();
+		byte[] pixels = this.pixels;
+		BufferPool pool = BufferPool.get();
+		pool.release(decoder);
+
+		if(decoded < frameSize) { // Truncated image data
+			if(!entry.isInterlaced())
+				Arrays.fill(pixels, decoded, frameSize, (byte)0);
+			else {
+				for(int row = decoded/width, column = decoded%width; row < height; row++, column = 0) {
+					int offset = AnimatedGIFReader.interlacedRow(row, height)*width;
+					Arrays.fill(pixels, offset + column, offset + width, (byte)0);
+				}
+			}
+		}
+
+		BufferedImage image;
+
+		if(composite) {
+			if(compositor == null) {
+				usage.checkCanvas(header.getLogicalScreenWidth(), header.getLogicalScreenHeight());
+				compositor = new FrameCompositor(header.getLogicalScreenWidth(), header.getLogicalScreenHeight());
+			}
+			compositor.drawFrame(pixels, entry.getLeftPosition(), entry.getTopPosition(), width, height,
+					colorPalette, entry.getTransparentColor(), entry.getDisposalMethod());
+			usage.decoded(4L*header.getLogicalScreenWidth()*header.getLogicalScreenHeight());
+			image = compositor.snapshot();
+			compositor.dispose();
+			pool.release(pixels);
+		} else {
+			image = AnimatedGIFReader.createIndexedImage(pixels, width, height, entry.getBitsPerPixel(), colorPalette, entry.getTransparentColor());
+		}
+
+		this.entry = null;
+		this.pixels = null;
+		this.decoder = null;
+		frameCount++;
+
+		listener.onFrame(new GIFFrame(image, entry.getLeftPosition(), entry.getTopPosition(), entry.getDelay(),
+				entry.getDisposalMethod(), entry.getUserInputFlag(), entry.getTransparencyFlag(), entry.getTransparentColor()));
+	}
+
+	// Parses the extensions, image descriptor and local color table of the current frame
+	private void frameHeaderComplete() throws Exception {
+		GIFSource is = GIFSource.wrap(ByteBuffer.wrap(pending, 0, pendingLength));
+		entry = GIFIndex.readEntry(is, header);
+		// Before anything is allocated for the frame
+		frameSize = usage.checkFrame(frameCount, entry.getWidth(), entry.getHeight());
+		usage.decoded(frameSize);
+		colorPalette = header.globalColorPalette();
+		if(entry.hasLocalPalette())
+			colorPalette = AnimatedGIFReader.readPalette(is, 1<<entry.getBitsPerPixel());
+		else if(colorPalette == null)
+			throw new IOException("No color table for frame " + frameCount);
+		pendingLength = 0;
+		state = MIN_CODE_SIZE;
+	}
+
+	/**
+	 * @return the number of frames handed over to the listener so far
+	 */
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * @return the logical screen height or 0 if the header has not been parsed yet
+	 */
+	public int getLogicalScreenHeight() {
+		return (header != null)? header.getLogicalScreenHeight() : 0;
+	}
+
+	/**
+	 * @return the logical screen width or 0 if the header has not been parsed yet
+	 */
+	public int getLogicalScreenWidth() {
+		return (header != null)? header.getLogicalScreenWidth() : 0;
+	}
+
+	/**
+	 * @return the loop count parsed so far, see {@link GIFMetadata#getLoopCount()}
+	 */
+	public int getLoopCount() {
+		return (header != null)? header.getLoopCount() : GIFMetadata.LOOP_COUNT_NONE;
+	}
+
+	// Parses the header, the logical screen descriptor and the global color table
+	private void headerComplete() throws Exception {
+		header = GIFIndex.readHeader(GIFSource.wrap(ByteBuffer.wrap(pending, 0, pendingLength)));
+		if(header == null) {
+			state = DONE;
+			throw new IOException("Not a GIF image");
+		}
+		usage = new DecodeLimits.Usage(limits);
+		usage.checkScreen(header.getLogicalScreenWidth(), header.getLogicalScreenHeight());
+		pendingLength = 0;
+		state = BLOCK;
+	}
+
+	// Checks whether the buffered application extension is a NETSCAPE2.0 or ANIMEXTS1.0 one
+	private boolean isLoopExtension() {
+		if(pending[extensionStart + 2] != 11) return false;
+		String application = new String(pending, extensionStart + 3, 11, StandardCharsets.US_ASCII);
+		return application.equals("NETSCAPE2.0") || application.equals("ANIMEXTS1.0");
+	}
+
+	/**
+	 * @return true once the trailer has been parsed or {@link #end()} called
+	 */
+	public boolean isDone() {
+		return state == DONE;
+	}
+
+	/**
+	 * @param limits resource limits checked while parsing or null, the default, for none.
+	 *        Must be set before the header is fed. A violation is thrown by
+	 *        {@link #feed(ByteBuffer)}.
+	 */
+	public void setDecodeLimits(DecodeLimits limits) {
+		this.limits = limits;
+	}
+}
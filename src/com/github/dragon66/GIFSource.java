@@ -0,0 +1,292 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFSource.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Byte source the GIF decoder reads from.
+ * <p>
+ * A source can be backed by a heap ByteBuffer, a direct ByteBuffer, a memory-mapped
+ * FileChannel or an InputStream. ByteBuffer backed sources are seekable and hand out
+ * the image data sub-blocks in place without copying. InputStream backed sources read
+ * ahead into an internal buffer, so the stream must not be used by anybody else while
+ * the source is in use.
+ * <p>
+ * Positions are the number of bytes from the start of the source.
+ */
+public abstract class GIFSource implements Closeable {
+
+	/**
+	 * Creates a seekable source over the remaining bytes of the buffer. The buffer
+	 * itself is not modified. Position 0 of the source is the current position of
+	 * the buffer.
+	 */
+	public static GIFSource wrap(ByteBuffer buf) {
+		return new ByteBufferSource(buf.slice(), null);
+	}
+
+	public static GIFSource wrap(byte[] b) {
+		return wrap(ByteBuffer.wrap(b));
+	}
+
+	/**
+	 * Creates a source reading from the input stream. Closing the source closes the stream.
+	 */
+	public static GIFSource wrap(InputStream is) {
+		return new StreamSource(is);
+	}
+
+	/**
+	 * Maps the whole file into memory and creates a seekable source over it. The
+	 * channel is closed when the source is closed.
+	 */
+	public static GIFSource map(FileChannel channel) throws IOException {
+		return new ByteBufferSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), channel);
+	}
+
+	public static GIFSource map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return map(raf.getChannel());
+		} catch(IOException ex) {
+			raf.close();
+			throw ex;
+		}
+	}
+
+	public void close() throws IOException {}
+
+	/**
+	 * Creates an independent source over the same bytes with its own position, which
+	 * is initially the same as this source's. Closing the duplicate does not affect this
+	 * source. Only supported by seekable sources.
+	 */
+	public GIFSource duplicate() throws IOException {
+		throw new IOException("Source is not seekable");
+	}
+
+	/**
+	 * @return true if {@link #seek(long) seek} is supported
+	 */
+	public boolean isSeekable() {
+		return false;
+	}
+
+	public abstract long position();
+
+	/**
+	 * Reads the next byte.
+	 *
+	 * @return the next byte as an unsigned value or -1 at the end of the source
+	 */
+	public abstract int read() throws IOException;
+
+	public void readFully(byte[] b) throws IOException {
+		readFully(b, 0, b.length);
+	}
+
+	public abstract void readFully(byte[] b, int off, int len) throws IOException;
+
+	/**
+	 * Reads a little-endian unsigned short.
+	 */
+	public int readUnsignedShort() throws IOException {
+		int b1 = read();
+		int b2 = read();
+		if((b1|b2) < 0)
+			throw new EOFException();
+		return (b2<<8)|b1;
+	}
+
+	public void seek(long pos) throws IOException {
+		throw new IOException("Source is not seekable");
+	}
+
+	public abstract void skipFully(int n) throws IOException;
+
+	/**
+	 * Returns the next len bytes as a ByteBuffer and advances the position by len.
+	 * Seekable sources return a view of the underlying bytes. The content of the buffer
+	 * is only valid until the next read from this source.
+	 */
+	public abstract ByteBuffer slice(int len) throws IOException;
+
+	private static class ByteBufferSource extends GIFSource {
+		private ByteBuffer buf;
+		private ByteBuffer view; // Reusable view for slices
+		private Closeable closeable;
+
+		ByteBufferSource(ByteBuffer buf, Closeable closeable) {
+			this.buf = buf;
+			this.view = buf.duplicate();
+			this.closeable = closeable;
+		}
+
+		public void close() throws IOException {
+			if(closeable != null) closeable.close();
+		}
+
+		public GIFSource duplicate() {
+			return new ByteBufferSource(buf.duplicate(), null);
+		}
+
+		public boolean isSeekable() {
+			return true;
+		}
+
+		public long position() {
+			return buf.position();
+		}
+
+		public int read() {
+			if(!buf.hasRemaining()) return -1;
+			return buf.get()&0xff;
+		}
+
+		public void readFully(byte[] b, int off, int len) throws IOException {
+			if (len < 0)
+				throw new IndexOutOfBoundsException();
+			if(buf.remaining() < len)
+				throw new EOFException();
+			buf.get(b, off, len);
+		}
+
+		public void seek(long pos) throws IOException {
+			if(pos < 0 || pos > buf.limit())
+				throw new IOException("Invalid position: " + pos);
+			buf.position((int)pos);
+		}
+
+		public void skipFully(int n) throws IOException {
+			if(buf.remaining() < n)
+				throw new EOFException();
+			buf.position(buf.position() + n);
+		}
+
+		public ByteBuffer slice(int len) throws IOException {
+			int pos = buf.position();
+			if(buf.remaining() < len)
+				throw new EOFException();
+			buf.position(pos + len);
+			view.limit(pos + len);
+			view.position(pos);
+			return view;
+		}
+	}
+
+	private static class StreamSource extends GIFSource {
+		private InputStream is;
+		private byte[] buf = new byte[8192];
+		private ByteBuffer view = ByteBuffer.wrap(buf);
+		private int bufPos;
+		private int bufLimit;
+		private long position;
+
+		StreamSource(InputStream is) {
+			this.is = is;
+		}
+
+		public void close() throws IOException {
+			is.close();
+		}
+
+		// Makes sure at least n bytes are buffered, returns false if the stream ends before that
+		private boolean ensure(int n) throws IOException {
+			if(bufLimit - bufPos >= n) return true;
+			if(n > buf.length) {
+				byte[] newBuf = new byte[Math.max(n, buf.length<<1)];
+				System.arraycopy(buf, bufPos, newBuf, 0, bufLimit - bufPos);
+				buf = newBuf;
+				view = ByteBuffer.wrap(buf);
+			} else
+				System.arraycopy(buf, bufPos, buf, 0, bufLimit - bufPos);
+			bufLimit -= bufPos;
+			bufPos = 0;
+			while(bufLimit < n) {
+				int count = is.read(buf, bufLimit, buf.length - bufLimit);
+				if(count < 0) return false;
+				bufLimit += count;
+			}
+			return true;
+		}
+
+		public long position() {
+			return position;
+		}
+
+		public int read() throws IOException {
+			if(bufPos == bufLimit && !ensure(1))
+				return -1;
+			position++;
+			return buf[bufPos++]&0xff;
+		}
+
+		public void readFully(byte[] b, int off, int len) throws IOException {
+			if (len < 0)
+				throw new IndexOutOfBoundsException();
+			int n = Math.min(len, bufLimit - bufPos);
+			System.arraycopy(buf, bufPos, b, off, n);
+			bufPos += n;
+			while (n < len) {
+				int count = is.read(b, off + n, len - n);
+				if (count < 0) {
+					position += n;
+					throw new EOFException();
+				}
+				n += count;
+			}
+			position += len;
+		}
+
+		public void skipFully(int n) throws IOException {
+			int skipped = Math.min(n, bufLimit - bufPos);
+			bufPos += skipped;
+			while(skipped < n) {
+				long count = is.skip(n - skipped);
+				if(count <= 0) { // Fall back to read
+					if(is.read() < 0) {
+						position += skipped;
+						throw new EOFException();
+					}
+					count = 1;
+				}
+				skipped += count;
+			}
+			position += n;
+		}
+
+		public ByteBuffer slice(int len) throws IOException {
+			if(!ensure(len))
+				throw new EOFException();
+			view.limit(bufPos + len);
+			view.position(bufPos);
+			bufPos += len;
+			position += len;
+			return view;
+		}
+	}
+}
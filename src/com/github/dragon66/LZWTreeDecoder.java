@@ -0,0 +1,362 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * LZWTreeDecoder.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Code, clear code and table full statistics
+ * AG    16Oct2026  Reusable through reset() for pooling
+ * AG    16Oct2026  Table driven decoding with wide bit accumulator
+ * WY    20Nov2015  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * LZW decoder for GIF image data.
+ * <p>
+ * Each string table entry keeps the length and the first byte of its string in
+ * addition to the prefix code and the suffix byte. This way the string for a code
+ * can be written backwards straight into the output buffer and a new entry is
+ * created without walking the prefix chain. Codes are read from the image data
+ * sub-blocks through a 64 bit accumulator which is refilled 4 bytes at a time
+ * whenever possible.
+ * <p>
+ * A decoder created without a source works in push mode: the image data, without
+ * the sub-block framing, is handed over chunk by chunk to {@link #decode(ByteBuffer, byte[], int, int)}
+ * which returns when the chunk runs out and picks up where it left off on the next call.
+ */
+class LZWTreeDecoder {
+	private static final int MAX_CODE = (1<<12);
+	private static final ByteBuffer EMPTY_BLOCK = ByteBuffer.allocate(0);
+	private static final int NEED_INPUT = -1;
+
+	// String table
+	private int[] prefix = new int[MAX_CODE + 1];
+	private byte[] suffix = new byte[MAX_CODE + 1];
+	private byte[] first = new byte[MAX_CODE + 1];
+	private int[] length = new int[MAX_CODE + 1];
+
+	// Variables for code reading
+	private long bitBuffer;
+	private int bitCount;
+	private ByteBuffer block = EMPTY_BLOCK; // Current image data sub-block
+	private boolean endOfData; // Block terminator or end of source reached
+	private boolean endOfImageReached;
+
+	private int oldcode = -1; // -1 means the next code is the first one after a clear code
+
+	private int min_code_size;
+	private int clearCode;
+	// End of image for GIF or end of information for TIFF
+	private int endOfImage;
+
+	// Variables to clear table
+	private int codeLen;
+	private int codeIndex;
+	private int limit;
+
+	private int first_code_index;
+
+	private GIFSource is;
+
+	// Statistics
+	private int codeCount;
+	private int clearCodeCount;
+	private int tableFullCount;
+
+	// Used to keep track of the not fully expanded code string.
+	private byte[] leftOverBuf;
+	private int leftOverOff;
+	private int leftOver = 0;
+
+	// There are some subtle differences between the LZW algorithm used by TIFF and GIF images.
+	//
+	// Variable Length Codes:
+	// Both TIFF and GIF use a variation of the LZW algorithm that uses variable length codes.
+	// In both cases, the maximum code size is 12 bits. The initial code size, however, is different
+	// between the two formats. TIFF's initial code size is always 9 bits. GIF's initial code size
+	// is specified on a per-file basis at the beginning of the image descriptor block,
+	// with a minimum of 3 bits.
+	//
+	// TIFF and GIF each switch to the next code size using slightly different algorithms.
+	// GIF increments the code size as soon as the LZW string table's length is equal to 2**code-size,
+	// while TIFF increments the code size when the table's length is equal to 2**code-size - 1.
+	//
+	// Packing Bits into Bytes
+	// TIFF and GIF LZW algorithms differ in how they pack the code bits into the byte stream.
+	// The least significant bit in a TIFF code is stored in the most significant bit of the bytestream,
+	// while the least significant bit in a GIF code is stored in the least significant bit of the bytestream.
+	//
+	// Special Codes
+	// TIFF and GIF both add the concept of a 'Clear Code' and a 'End of Information Code' to the LZW algorithm.
+	// In both cases, the 'Clear Code' is equal to 2**(code-size - 1) and the 'End of Information Code' is equal
+	// to the Clear Code + 1. These 2 codes are reserved in the string table. So in both cases, the LZW string
+	// table is initialized to have a length equal to the End of Information Code + 1.
+
+	/**
+	 * Creates a decoder in push mode.
+	 */
+	public LZWTreeDecoder(int min_code_size) {
+		this(null, min_code_size);
+	}
+
+	public LZWTreeDecoder(GIFSource is, int min_code_size) {
+		reset(is, min_code_size);
+	}
+
+	/**
+	 * Prepares the decoder for new image data. The string table arrays are reused.
+	 */
+	void reset(GIFSource is, int min_code_size) {
+		if(min_code_size < 2 || min_code_size > 12)
+			throw new IllegalArgumentException("invalid min_code_size: " + min_code_size);
+		this.is = is;
+		this.min_code_size = min_code_size;
+		clearCode = (1<<min_code_size);
+		endOfImage = clearCode+1;
+		first_code_index = endOfImage+1;
+		// Root entries never change
+		for(int i = 0; i < clearCode; i++) {
+			suffix[i] = first[i] = (byte)i;
+			length[i] = 1;
+		}
+		bitBuffer = 0;
+		bitCount = 0;
+		block = EMPTY_BLOCK;
+		endOfData = false;
+		endOfImageReached = false;
+		leftOver = 0;
+		codeCount = clearCodeCount = tableFullCount = 0;
+		// Reset string table
+		clearStringTable();
+	}
+
+	// Drops the references to the source so that a pooled decoder doesn't keep it alive
+	void detach() {
+		is = null;
+		block = EMPTY_BLOCK;
+	}
+
+	private void clearStringTable() {
+		// Reset string table
+		codeLen = min_code_size+1;
+		limit = (1<<codeLen)-1;
+		codeIndex = first_code_index;
+		oldcode = -1;
+	}
+
+	/**
+	 * Decodes up to len bytes into pix starting from offset. Decoding can be resumed
+	 * by another call if the output buffer fills up in the middle of a code string.
+	 *
+	 * @return the number of bytes decoded
+	 */
+	public int decode(byte[] pix, int offset, int len) throws Exception {
+		int end = Math.min(pix.length, offset + len);
+		int start = offset;
+
+		if(leftOver > 0) { // Flush out left over first.
+			int n = Math.min(leftOver, end - offset);
+			System.arraycopy(leftOverBuf, leftOverOff, pix, offset, n);
+			offset += n;
+			leftOverOff += n;
+			leftOver -= n;
+		}
+
+		// Local copies of the hot state
+		final int[] prefix = this.prefix;
+		final byte[] suffix = this.suffix;
+		final byte[] first = this.first;
+		final int[] length = this.length;
+		int codes = 0;
+
+		while(offset < end && !endOfImageReached) {
+			int code = readLZWCode();
+
+			if(code == NEED_INPUT) break;
+
+			codes++;
+
+			if(code == clearCode) {
+				clearCodeCount++;
+				clearStringTable();
+				continue;
+			}
+
+			if(code == endOfImage) {
+				endOfImageReached = true;
+				break;
+			}
+
+			if(oldcode < 0) { // First code after a clear code
+				if(code >= clearCode) code = 0; // Corrupted data, should never come here
+				pix[offset++] = suffix[code];
+				oldcode = code;
+				continue;
+			}
+
+			if(code >= codeIndex) { // The string for the code is not in the table yet
+				// Check boundary to deal with deferred clear code in LZW compression
+				if(codeIndex < MAX_CODE) {
+					addStringToTable(oldcode, first[oldcode]);
+					code = codeIndex - 1;
+				} else
+					code = oldcode;
+			} else if(codeIndex < MAX_CODE)
+				addStringToTable(oldcode, first[code]);
+
+			oldcode = code;
+
+			// Output strings for the current code
+			int n = length[code];
+
+			if(n == 1) {
+				pix[offset++] = suffix[code];
+			} else if(n <= end - offset) {
+				int p = offset + n - 1;
+				while(p > offset) {
+					pix[p--] = suffix[code];
+					code = prefix[code];
+				}
+				pix[p] = suffix[code];
+				offset += n;
+			} else { // Not enough room, keep what is left for the next call
+				if(leftOverBuf == null) leftOverBuf = new byte[MAX_CODE];
+				for(int p = n - 1; p > 0; p--) {
+					leftOverBuf[p] = suffix[code];
+					code = prefix[code];
+				}
+				leftOverBuf[0] = suffix[code];
+				int k = end - offset;
+				System.arraycopy(leftOverBuf, 0, pix, offset, k);
+				offset += k;
+				leftOverOff = k;
+				leftOver = n - k;
+			}
+		}
+
+		codeCount += codes;
+
+		return offset - start;
+	}
+
+	/**
+	 * Decodes up to len bytes into pix starting from offset in push mode. The data are
+	 * the image data bytes following the ones of the previous call. Decoding stops when
+	 * the data run out, the output buffer fills up or the end of image code is reached.
+	 * Data not consumed when the output buffer fills up are dropped.
+	 *
+	 * @return the number of bytes decoded
+	 */
+	public int decode(ByteBuffer data, byte[] pix, int offset, int len) throws Exception {
+		block = data.order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			return decode(pix, offset, len);
+		} finally {
+			block = EMPTY_BLOCK;
+		}
+	}
+
+	private void addStringToTable(int prefixCode, byte suffixByte) {
+		prefix[codeIndex] = prefixCode;
+		suffix[codeIndex] = suffixByte;
+		first[codeIndex] = first[prefixCode];
+		length[codeIndex] = length[prefixCode] + 1;
+
+		codeIndex++;
+
+		if(codeIndex == MAX_CODE) tableFullCount++;
+
+		if((codeIndex > limit) && (codeLen<12)) {
+			codeLen++;
+			limit = (1<<codeLen)-1;
+		}
+	}
+
+	private int readLZWCode() throws Exception {
+		if(bitCount < codeLen) {
+			fillBitBuffer();
+			if(bitCount < codeLen) return (is == null)? NEED_INPUT : endOfImage;
+		}
+
+		int code = (int)bitBuffer & ((1<<codeLen) - 1);
+		bitBuffer >>>= codeLen;
+		bitCount -= codeLen;
+
+		return code;
+	}
+
+	// Refills the accumulator, 4 bytes at a time if the current sub-block allows it
+	private void fillBitBuffer() throws Exception {
+		while(bitCount <= 56) {
+			if(!block.hasRemaining()) {
+				if(endOfData || is == null) return;
+				// find another data block available
+				// Start a new image data sub-block if possible!
+				// The block size is no bigger than 0xff
+				int bytes_available = is.read();
+				if(bytes_available <= 0) {
+					endOfData = true;
+					return;
+				}
+				block = is.slice(bytes_available);
+				block.order(ByteOrder.LITTLE_ENDIAN);
+			}
+			if(bitCount <= 32 && block.remaining() >= 4) {
+				bitBuffer |= (block.getInt()&0xffffffffL)<<bitCount;
+				bitCount += 32;
+			} else {
+				bitBuffer |= (block.get()&0xffL)<<bitCount;
+				bitCount += 8;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of clear codes read since the decoder was created or reset
+	 */
+	int getClearCodeCount() {
+		return clearCodeCount;
+	}
+
+	/**
+	 * @return the number of codes read since the decoder was created or reset, the
+	 *         clear and end of image codes included
+	 */
+	int getCodeCount() {
+		return codeCount;
+	}
+
+	/**
+	 * @return the number of times the string table filled up to 4096 entries since the
+	 *         decoder was created or reset
+	 */
+	int getTableFullCount() {
+		return tableFullCount;
+	}
+
+	/**
+	 * Skips the image data sub-blocks not consumed by the decoder so that the source
+	 * is positioned right after the block terminator.
+	 */
+	public void skipToEnd() throws Exception {
+		if(endOfData) return;
+		block = EMPTY_BLOCK;
+		bitCount = 0;
+		endOfData = true;
+		GIFIndex.skipSubBlocks(is);
+	}
+}
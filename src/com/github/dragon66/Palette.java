@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * Palette.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable color table of opaque ARGB values.
+ * <p>
+ * Palettes are interned by content through {@link #of(int[])} so the frames of an image
+ * and the images read by different readers which have the same color table get the
+ * same instance. The IndexColorModels and the lookup tables used for compositing are
+ * built once per palette and transparent index and then shared. The transparent index
+ * is never written into the colors themselves.
+ */
+final class Palette {
+	// Maximum number of palettes interned
+	private static final int CACHE_SIZE = 256;
+
+	// Lookups take no lock, only the misses evict
+	private static final Map<Palette, Palette> CACHE = new ConcurrentHashMap<Palette, Palette>(64);
+
+	private final int[] colors;
+	private final int hash;
+	// Looked up since the last eviction sweep
+	private volatile boolean used;
+	// Keyed by bits per pixel and transparent index
+	private final Map<Integer, IndexColorModel> colorModels = new ConcurrentHashMap<Integer, IndexColorModel>();
+	// Keyed by transparent index
+	private final Map<Integer, int[]> lookupTables = new ConcurrentHashMap<Integer, int[]>();
+
+	private Palette(int[] colors) {
+		int hash = 1;
+		for(int color : colors)
+			hash = 31*hash + (color|0xff000000);
+		this.colors = colors;
+		this.hash = hash;
+	}
+
+	/**
+	 * @param colors ARGB colors, the alpha channel is ignored. The array is copied if
+	 *        the palette isn't interned yet and may be reused by the caller.
+	 * @return the interned palette with these colors
+	 */
+	static Palette of(int[] colors) {
+		Palette palette = CACHE.get(new Palette(colors));
+		if(palette != null) {
+			if(!palette.used) palette.used = true; // Don't write the shared flag on every hit
+			return palette;
+		}
+		int[] opaque = new int[colors.length];
+		for(int i = 0; i < colors.length; i++)
+			opaque[i] = colors[i]|0xff000000;
+		palette = new Palette(opaque);
+		palette.used = true; // Survives the next sweep like a palette just looked up
+		Palette interned = CACHE.putIfAbsent(palette, palette);
+		if(interned != null) return interned; // Added by another thread in the meantime
+		if(CACHE.size() > CACHE_SIZE)
+			evict();
+		return palette;
+	}
+
+	// Second chance eviction: the palettes looked up since the previous sweep are kept for
+	// another round, the others are dropped until the cache is back to its size
+	private static void evict() {
+		while(CACHE.size() > CACHE_SIZE) {
+			for(Iterator<Palette> it = CACHE.keySet().iterator(); it.hasNext() && CACHE.size() > CACHE_SIZE; ) {
+				Palette palette = it.next();
+				if(palette.used)
+					palette.used = false;
+				else
+					it.remove();
+			}
+		}
+	}
+
+	/**
+	 * @return the colors, the array itself which must not be modified
+	 */
+	int[] colors() {
+		return colors;
+	}
+
+	public boolean equals(Object obj) {
+		if(obj == this) return true;
+		if(!(obj instanceof Palette)) return false;
+		Palette other = (Palette)obj;
+		return hash == other.hash && sameColors(other.colors);
+	}
+
+	// Compares the colors ignoring the alpha channel
+	private boolean sameColors(int[] other) {
+		if(other.length != colors.length) return false;
+		for(int i = 0; i < colors.length; i++)
+			if(((colors[i]^other[i])&0xffffff) != 0) return false;
+		return true;
+	}
+
+	/**
+	 * @return an IndexColorModel for the palette, transparentIndex being transparent if
+	 *         it is one of the colors
+	 */
+	IndexColorModel getColorModel(int bitsPerPixel, int transparentIndex) {
+		if(transparentIndex < 0 || transparentIndex >= colors.length)
+			transparentIndex = -1;
+		Integer key = (bitsPerPixel<<9)|(transparentIndex + 1);
+		IndexColorModel cm = colorModels.get(key);
+		if(cm == null) {
+			cm = new IndexColorModel(bitsPerPixel, colors.length, colors, 0, false, transparentIndex, DataBuffer.TYPE_BYTE);
+			colorModels.put(key, cm);
+		}
+		return cm;
+	}
+
+	/**
+	 * @return a 256 entry color index to ARGB table in which the transparent index and
+	 *         the indices outside of the palette map to 0. The array must not be modified.
+	 */
+	int[] getLookupTable(int transparentIndex) {
+		if(transparentIndex < 0 || transparentIndex >= 256)
+			transparentIndex = -1;
+		Integer key = transparentIndex;
+		int[] lut = lookupTables.get(key);
+		if(lut == null) {
+			lut = new int[256];
+			System.arraycopy(colors, 0, lut, 0, Math.min(colors.length, 256));
+			if(transparentIndex >= 0)
+				lut[transparentIndex] = 0;
+			lookupTables.put(key, lut);
+		}
+		return lut;
+	}
+
+	/**
+	 * @return the opaque ARGB value of a color
+	 */
+	int getRGB(int index) {
+		return colors[index];
+	}
+
+	public int hashCode() {
+		return hash;
+	}
+
+	int size() {
+		return colors.length;
+	}
+}
@@ -0,0 +1,247 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * ParallelGIFReader.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+/**
+ * Reads an animated GIF decoding the LZW image data of several frames at the same time.
+ * <p>
+ * The frame boundaries are found first by a {@link GIFIndex} pass. The image data of the
+ * frames is then decoded concurrently on an Executor, each task with its own view of the
+ * source and its own {@link LZWTreeDecoder}. Composition has to follow the frame order
+ * and is done on the calling thread as soon as the next frame in order is decoded while
+ * the decoding of the following frames goes on. To bound the memory used by decoded but
+ * not yet composited frames, only a limited number of frames are decoded ahead.
+ * <p>
+ * The frames produced are the same as the ones produced by
+ * {@link AnimatedGIFReader#read(InputStream)}.
+ */
+public class ParallelGIFReader {
+	private Executor executor;
+	private int lookAhead;
+	private DecodeLimits limits;
+	// To keep track of all the frames
+	private List<GIFFrame> gifFrames;
+	private int logicalScreenWidth;
+	private int logicalScreenHeight;
+
+	/**
+	 * Creates a reader decoding on a pool of daemon threads, one per processor, shared
+	 * by all the readers created this way.
+	 */
+	public ParallelGIFReader() {
+		this(DefaultExecutor.POOL);
+	}
+
+	/**
+	 * Creates a reader decoding on the given executor.
+	 */
+	public ParallelGIFReader(Executor executor) {
+		this.executor = executor;
+		this.lookAhead = 2*Runtime.getRuntime().availableProcessors();
+	}
+
+	public BufferedImage getFrame(int i) {
+		GIFFrame frame = getGIFFrame(i);
+		return (frame != null)? frame.getFrame() : null;
+	}
+
+	public int getFrameCount() {
+		if(gifFrames != null)
+			return gifFrames.size();
+		return 0;
+	}
+
+	public GIFFrame getGIFFrame(int i) {
+		if(gifFrames == null) return null;
+		if(i < 0 || i >= gifFrames.size())
+			throw new IndexOutOfBoundsException("Index: " + i);
+		return gifFrames.get(i);
+	}
+
+	public List<GIFFrame> getGIFFrames() {
+		if(gifFrames != null)
+			return Collections.unmodifiableList(gifFrames);
+		return Collections.emptyList();
+	}
+
+	public int getLogicalScreenHeight() {
+		return logicalScreenHeight;
+	}
+
+	public int getLogicalScreenWidth() {
+		return logicalScreenWidth;
+	}
+
+	/**
+	 * Reads the whole stream into memory before decoding.
+	 *
+	 * @param is InputStream for the GIF/Animated GIF
+	 * @return the first frame or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public BufferedImage read(InputStream is) throws Exception {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		int count = 0;
+		while((count = is.read(buf)) >= 0)
+			bout.write(buf, 0, count);
+
+		return read(GIFSource.wrap(bout.toByteArray()));
+	}
+
+	/**
+	 * @param source seekable GIFSource for the GIF/Animated GIF
+	 * @return the first frame or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public BufferedImage read(GIFSource source) throws Exception {
+		if(!source.isSeekable())
+			throw new IllegalArgumentException("Source is not seekable");
+
+		// Nothing left over from the previous image
+		gifFrames = null;
+		logicalScreenWidth = 0;
+		logicalScreenHeight = 0;
+
+		GIFIndex index = GIFIndex.build(source);
+		if(index == null) return null;
+
+		logicalScreenWidth = index.getLogicalScreenWidth();
+		logicalScreenHeight = index.getLogicalScreenHeight();
+		gifFrames = new ArrayList<GIFFrame>(index.getFrameCount());
+
+		DecodeLimits.Usage usage = new DecodeLimits.Usage(limits);
+		usage.checkScreen(logicalScreenWidth, logicalScreenHeight);
+		usage.checkCanvas(logicalScreenWidth, logicalScreenHeight);
+		FrameCompositor compositor = new FrameCompositor(logicalScreenWidth, logicalScreenHeight);
+		ArrayDeque<FutureTask<DecodedFrame>> pending = new ArrayDeque<FutureTask<DecodedFrame>>();
+		int next = 0; // Next frame to submit
+
+		try {
+			while(next < index.getFrameCount() || !pending.isEmpty()) {
+				// Keep the decoding window full
+				while(next < index.getFrameCount() && pending.size() < lookAhead) {
+					GIFIndex.Entry entry = index.getEntry(next);
+					usage.decoded(usage.checkFrame(next, entry.getWidth(), entry.getHeight()));
+					FutureTask<DecodedFrame> task = new FutureTask<DecodedFrame>(new DecodeTask(source.duplicate(), index, entry));
+					next++;
+					executor.execute(task);
+					pending.add(task);
+				}
+				DecodedFrame frame = get(pending.poll());
+				GIFIndex.Entry entry = frame.entry;
+				compositor.drawFrame(frame.pixels, entry.getLeftPosition(), entry.getTopPosition(), entry.getWidth(), entry.getHeight(),
+						frame.colorPalette, entry.getTransparentColor(), entry.getDisposalMethod());
+				usage.decoded(4L*logicalScreenWidth*logicalScreenHeight);
+				gifFrames.add(new GIFFrame(compositor.snapshot(), entry.getLeftPosition(), entry.getTopPosition(), entry.getDelay(),
+						entry.getDisposalMethod(), entry.getUserInputFlag(), entry.getTransparencyFlag(), entry.getTransparentColor()));
+				compositor.dispose();
+			}
+		} finally {
+			for(FutureTask<DecodedFrame> task : pending)
+				task.cancel(false);
+		}
+
+		return gifFrames.isEmpty()? null : gifFrames.get(0).getFrame();
+	}
+
+	/**
+	 * @param limits resource limits checked while reading or null, the default, for none.
+	 *        The frames are checked as they are submitted for decoding.
+	 */
+	public void setDecodeLimits(DecodeLimits limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * @param lookAhead maximum number of frames decoded ahead of composition, defaults
+	 *        to twice the number of available processors
+	 */
+	public void setLookAhead(int lookAhead) {
+		if(lookAhead < 1)
+			throw new IllegalArgumentException("Invalid look ahead: " + lookAhead);
+		this.lookAhead = lookAhead;
+	}
+
+	// The composing thread blocks waiting for the decoded frames, which would take
+	// workers away from the common ForkJoinPool without compensation
+	private static class DefaultExecutor {
+		private static final ExecutorService POOL = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "gif-decode");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private static DecodedFrame get(FutureTask<DecodedFrame> task) throws Exception {
+		try {
+			return task.get();
+		} catch(ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if(cause instanceof Exception) throw (Exception)cause;
+			if(cause instanceof Error) throw (Error)cause;
+			throw ex;
+		}
+	}
+
+	private static class DecodedFrame {
+		private GIFIndex.Entry entry;
+		private Palette colorPalette;
+		private byte[] pixels;
+	}
+
+	private static class DecodeTask implements Callable<DecodedFrame> {
+		private GIFSource source;
+		private GIFIndex index;
+		private GIFIndex.Entry entry;
+
+		DecodeTask(GIFSource source, GIFIndex index, GIFIndex.Entry entry) {
+			this.source = source;
+			this.index = index;
+			this.entry = entry;
+		}
+
+		public DecodedFrame call() throws Exception {
+			DecodedFrame frame = new DecodedFrame();
+			frame.entry = entry;
+			frame.colorPalette = RandomAccessGIFReader.readColorPalette(source, index, entry);
+			frame.pixels = RandomAccessGIFReader.decodeFrame(source, entry);
+			return frame;
+		}
+	}
+}
@@ -0,0 +1,412 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * PipelinedGIFReader.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads an animated GIF through three stages running on their own threads.
+ * <p>
+ * The first stage reads the blocks of the source and parses the frames, the second one
+ * decodes their LZW image data and the third one composites them. The stages are
+ * connected by bounded queues and the composited frames are copied into the canvases
+ * of a caller provided {@link FrameRing}. The consumer takes the frames from the ring
+ * on its own thread while the following frames are being read and decoded. When the
+ * consumer falls behind, all the canvases of the ring end up taken and the stages wait
+ * one after another, so the memory used stays the same however long the animation is.
+ * <p>
+ * Usage:
+ * <pre>
+ * FrameRing ring = new FrameRing(4);
+ * PipelinedGIFReader reader = new PipelinedGIFReader();
+ * reader.start(GIFSource.wrap(is), ring);
+ * FrameRing.Slot slot;
+ * while((slot = ring.take()) != null) {
+ *     encode(slot.getImage(), slot.getDelay());
+ *     ring.release(slot);
+ * }
+ * </pre>
+ * The frames produced are the same as the ones produced by
+ * {@link AnimatedGIFReader#read(InputStream)}.
+ */
+public class PipelinedGIFReader {
+	// Marks the end of the frames in the stage queues
+	private static final Object END = new Object();
+
+	/**
+	 * Maximum number of readings running at the same time on the default executor
+	 */
+	public static final int MAX_DEFAULT_READINGS = 2*Runtime.getRuntime().availableProcessors();
+
+	private Executor executor;
+	private int queueCapacity = 4;
+	private DecodeLimits limits;
+	// The reading started last
+	private volatile Run run;
+	private volatile GIFIndex header;
+
+	/**
+	 * Creates a reader running the stages on a pool of daemon threads shared by all the
+	 * readers created this way. The threads are reused from image to image and there are
+	 * no more of them than needed for {@link #MAX_DEFAULT_READINGS} readings at a time.
+	 * {@link #start(GIFSource, FrameRing) start} throws a RejectedExecutionException
+	 * beyond that.
+	 */
+	public PipelinedGIFReader() {
+		this(DefaultExecutor.POOL);
+	}
+
+	/**
+	 * Creates a reader running the stages on the given executor which must be able to
+	 * run three tasks at the same time.
+	 */
+	public PipelinedGIFReader(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Stops the reading started last. The frames already in the ring can still be
+	 * taken, {@link FrameRing#take()} then throws a CancellationException.
+	 */
+	public void cancel() {
+		Run run = this.run;
+		if(run != null)
+			run.fail(new CancellationException("Reading cancelled"));
+	}
+
+	public int getLogicalScreenHeight() {
+		return header == null? 0 : header.getLogicalScreenHeight();
+	}
+
+	public int getLogicalScreenWidth() {
+		return header == null? 0 : header.getLogicalScreenWidth();
+	}
+
+	/**
+	 * @return the loop count of the NETSCAPE2.0 application extension, 0 to loop forever or
+	 *         {@link GIFMetadata#LOOP_COUNT_NONE} if there isn't one. Only final once the
+	 *         last frame is taken.
+	 */
+	public int getLoopCount() {
+		return header == null? GIFMetadata.LOOP_COUNT_NONE : header.getLoopCount();
+	}
+
+	/**
+	 * @param limits resource limits checked by the following readings or null, the default,
+	 *        for none. A violation ends the ring with the DecodeLimitException, the logical
+	 *        screen size is checked by {@link #start(GIFSource, FrameRing) start} itself.
+	 */
+	public void setDecodeLimits(DecodeLimits limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * @param queueCapacity maximum number of frames waiting between two stages, defaults to 4
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		if(queueCapacity < 1)
+			throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Reads the header and starts the stages. The frames are then taken from the ring
+	 * which must not be used by another reader at the same time. Any frames left in the
+	 * ring from a previous image are dropped.
+	 *
+	 * @param source GIFSource for the GIF/Animated GIF, seekable or not. The source
+	 *        belongs to the reader until the end of the frames.
+	 * @param ring ring the composited frames are delivered into
+	 * @return false if the input is not a GIF in which case nothing is started
+	 * @throws RejectedExecutionException if the executor can't run the stages, the ring
+	 *         then fails with the same exception
+	 * @throws Exception
+	 */
+	public boolean start(GIFSource source, FrameRing ring) throws Exception {
+		GIFIndex header = GIFIndex.readHeader(source);
+		if(header == null) return false;
+		DecodeLimits.Usage usage = new DecodeLimits.Usage(limits);
+		usage.checkScreen(header.getLogicalScreenWidth(), header.getLogicalScreenHeight());
+		// The canvas of the compositor and the ones of the ring, before any of them is allocated
+		int canvasSize = usage.checkCanvas(header.getLogicalScreenWidth(), header.getLogicalScreenHeight());
+		usage.decoded(4L*canvasSize*ring.getCapacity());
+		this.header = header;
+
+		Run run = new Run(ring, ring.open(), usage);
+		this.run = run;
+
+		BlockingQueue<Object> parsed = new ArrayBlockingQueue<Object>(queueCapacity);
+		BlockingQueue<Object> decoded = new ArrayBlockingQueue<Object>(queueCapacity);
+		// Color index buffers given back by the composite stage for the decode stage to reuse
+		BlockingQueue<byte[]> spare = new ArrayBlockingQueue<byte[]>(queueCapacity + 2);
+
+		try {
+			executor.execute(new ParseStage(run, source, header, parsed));
+			executor.execute(new DecodeStage(run, source.isSeekable()? source.duplicate() : null, parsed, decoded, spare));
+			executor.execute(new CompositeStage(run, header, decoded, spare));
+		} catch(RejectedExecutionException ex) {
+			run.fail(ex); // Stops the stages already started
+			throw ex;
+		}
+
+		return true;
+	}
+
+	// The stages of a reading wait on each other, so a reading needs its three threads at
+	// once. A synchronous handoff never leaves a stage queued behind the stages of other
+	// readings, it is run at once or rejected.
+	private static class DefaultExecutor {
+		private static final ExecutorService POOL = new ThreadPoolExecutor(0, 3*MAX_DEFAULT_READINGS, 60L, TimeUnit.SECONDS,
+				new SynchronousQueue<Runnable>(), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "gif-pipeline");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	// Copies the LZW minimum code size and the data sub-blocks of a non seekable source
+	private static ByteBuffer readImageData(GIFSource is) throws Exception {
+		byte[] data = new byte[4096];
+		int length = 0;
+		data[length++] = (byte)is.read(); // LZW minimum code size
+		int len = 0;
+
+		do {
+			len = Math.max(is.read(), 0); // Treat the end of stream as the block terminator
+			if(length + 1 + len > data.length)
+				data = Arrays.copyOf(data, Math.max(2*data.length, length + 1 + len));
+			data[length++] = (byte)len;
+			is.readFully(data, length, len);
+			length += len;
+		} while(len > 0);
+
+		return ByteBuffer.wrap(data, 0, length);
+	}
+
+	private static class Frame {
+		private GIFIndex.Entry entry;
+		private Palette colorPalette;
+		// Image data copied from a non seekable source
+		private ByteBuffer data;
+		private byte[] pixels;
+	}
+
+	/**
+	 * State shared by the stages of one reading. The first error fails the ring and
+	 * interrupts the stages already running, the ones started afterwards see the failure
+	 * and return at once, so no stage is left waiting on a queue nobody feeds any more.
+	 */
+	private static class Run {
+		private FrameRing ring;
+		private int generation;
+		private DecodeLimits.Usage usage;
+		// Threads currently running a stage
+		private List<Thread> threads = new ArrayList<Thread>();
+		private boolean failed;
+
+		Run(FrameRing ring, int generation, DecodeLimits.Usage usage) {
+			this.ring = ring;
+			this.generation = generation;
+			this.usage = usage;
+		}
+
+		// Registers the current thread unless the reading already failed
+		synchronized boolean enter() {
+			if(failed) return false;
+			threads.add(Thread.currentThread());
+			return true;
+		}
+
+		synchronized void exit() {
+			threads.remove(Thread.currentThread());
+		}
+
+		synchronized void fail(Throwable t) {
+			if(failed) return;
+			failed = true;
+			ring.fail(generation, t);
+			for(Thread thread : threads)
+				if(thread != Thread.currentThread()) thread.interrupt();
+		}
+	}
+
+	/**
+	 * Common part of the stages: keeps track of the running threads and ends the ring
+	 * with the first error.
+	 */
+	private abstract static class Stage implements Runnable {
+		Run run;
+		FrameRing ring;
+
+		Stage(Run run) {
+			this.run = run;
+			this.ring = run.ring;
+		}
+
+		public final void run() {
+			if(!run.enter()) return;
+			try {
+				process();
+			} catch(InterruptedException ex) {
+				run.fail(new CancellationException("Reading cancelled"));
+			} catch(Throwable t) {
+				run.fail(t);
+			} finally {
+				run.exit();
+				Thread.interrupted(); // Don't leave a pooled thread interrupted
+			}
+		}
+
+		abstract void process() throws Exception;
+	}
+
+	private static class ParseStage extends Stage {
+		private GIFSource source;
+		private GIFIndex header;
+		private BlockingQueue<Object> parsed;
+
+		ParseStage(Run run, GIFSource source, GIFIndex header, BlockingQueue<Object> parsed) {
+			super(run);
+			this.source = source;
+			this.header = header;
+			this.parsed = parsed;
+		}
+
+		void process() throws Exception {
+			GIFIndex.Entry entry = null;
+			int frameIndex = 0;
+
+			while((entry = GIFIndex.readEntry(source, header)) != null) {
+				// The color indices are decoded by the next stage but accounted for here
+				run.usage.decoded(run.usage.checkFrame(frameIndex++, entry.getWidth(), entry.getHeight()));
+				Frame frame = new Frame();
+				frame.entry = entry;
+				frame.colorPalette = header.globalColorPalette();
+				if(entry.hasLocalPalette())
+					frame.colorPalette = AnimatedGIFReader.readPalette(source, 1<<entry.getBitsPerPixel());
+				else if(frame.colorPalette == null)
+					throw new IOException("No color table for frame at offset: " + entry.getOffset());
+				if(source.isSeekable()) { // The decode stage reads the image data itself
+					source.read(); // LZW minimum code size
+					GIFIndex.skipSubBlocks(source);
+				} else
+					frame.data = readImageData(source);
+				parsed.put(frame);
+			}
+
+			parsed.put(END);
+		}
+	}
+
+	private static class DecodeStage extends Stage {
+		private GIFSource source;
+		private BlockingQueue<Object> parsed;
+		private BlockingQueue<Object> decoded;
+		private BlockingQueue<byte[]> spare;
+
+		DecodeStage(Run run, GIFSource source, BlockingQueue<Object> parsed, BlockingQueue<Object> decoded, BlockingQueue<byte[]> spare) {
+			super(run);
+			this.source = source;
+			this.parsed = parsed;
+			this.decoded = decoded;
+			this.spare = spare;
+		}
+
+		void process() throws Exception {
+			Object next = null;
+
+			while((next = parsed.take()) != END) {
+				Frame frame = (Frame)next;
+				GIFIndex.Entry entry = frame.entry;
+				GIFSource is = source;
+				if(is == null)
+					is = GIFSource.wrap(frame.data);
+				else
+					is.seek(entry.getDataOffset());
+				int size = entry.getWidth()*entry.getHeight();
+				byte[] pixels = spare.poll();
+				if(pixels == null || pixels.length < size)
+					pixels = new byte[size];
+				AnimatedGIFReader.decodeLZW(is, entry.getWidth(), entry.getHeight(), entry.isInterlaced(), pixels, 0);
+				frame.pixels = pixels;
+				frame.data = null;
+				decoded.put(frame);
+			}
+
+			decoded.put(END);
+		}
+	}
+
+	private static class CompositeStage extends Stage {
+		private GIFIndex header;
+		private BlockingQueue<Object> decoded;
+		private BlockingQueue<byte[]> spare;
+
+		CompositeStage(Run run, GIFIndex header, BlockingQueue<Object> decoded, BlockingQueue<byte[]> spare) {
+			super(run);
+			this.header = header;
+			this.decoded = decoded;
+			this.spare = spare;
+		}
+
+		void process() throws Exception {
+			int width = header.getLogicalScreenWidth();
+			int height = header.getLogicalScreenHeight();
+			FrameCompositor compositor = new FrameCompositor(width, height);
+			int frameIndex = 0;
+			Object next = null;
+
+			while((next = decoded.take()) != END) {
+				Frame frame = (Frame)next;
+				GIFIndex.Entry entry = frame.entry;
+				compositor.drawFrame(frame.pixels, entry.getLeftPosition(), entry.getTopPosition(), entry.getWidth(), entry.getHeight(),
+						frame.colorPalette, entry.getTransparentColor(), entry.getDisposalMethod());
+				spare.offer(frame.pixels);
+				FrameRing.Slot slot = ring.acquire(run.generation); // Waits for the consumer to release a canvas
+				try {
+					compositor.copyCanvas(slot.canvas(width, height));
+					slot.set(frameIndex++, entry);
+					ring.publish(slot);
+				} finally {
+					ring.abandon(slot); // Unless published
+				}
+				compositor.dispose();
+			}
+
+			ring.end(run.generation);
+		}
+	}
+}
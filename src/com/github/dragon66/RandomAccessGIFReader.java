@@ -0,0 +1,371 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * RandomAccessGIFReader.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+/**
+ * Random access to the frames of a GIF/animated GIF read from a seekable {@link GIFSource}.
+ * <p>
+ * A {@link GIFIndex} is built once when the reader is created. Afterwards any frame
+ * can be retrieved by seeking directly to its color table and image data without
+ * decoding the frames before it. The frames returned are the same as the ones
+ * created by {@link AnimatedGIFReader#getFrameAsBufferedImage(InputStream)}, i.e.,
+ * they are not composited with the previous frames.
+ * <p>
+ * Composited frames are available through {@link #getCompositeFrame(int)}. To avoid
+ * replaying all the frames from the first one on each call, the canvas is snapshotted
+ * before every {@link #setCheckpointInterval(int) N-th} frame drawn and the snapshots
+ * are kept in an LRU cache within a {@link #setCheckpointBudget(long) byte budget}. A
+ * composited frame is then built starting from the closest of the nearest cached
+ * snapshot, the nearest keyframe and the current canvas before it. Keyframes are frames
+ * whose composition does not depend on the previous frames, i.e., the first frame, the
+ * opaque frames covering the whole logical screen and the frames following a frame
+ * whose disposal clears the whole logical screen. They are found from the index alone.
+ * <p>
+ * The color indices of a frame can also be decoded into a caller provided buffer with
+ * {@link #readPixels(int, byte[], int)} and combined with {@link #getColorPalette(int)}
+ * and the {@link GIFIndex.Entry entry} of the frame without any image being created.
+ * <p>
+ * Instances of this class are not thread safe.
+ */
+public class RandomAccessGIFReader implements Closeable {
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 16;
+	public static final long DEFAULT_CHECKPOINT_BUDGET = 64L<<20;
+
+	private GIFSource source;
+	private GIFIndex index;
+	// Composition state
+	private FrameCompositor compositor;
+	private int cursor = -1; // Frame the canvas is ready to draw, -1 if none
+	private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+	private CheckpointCache checkpoints = new CheckpointCache(DEFAULT_CHECKPOINT_BUDGET);
+	private DecodeLimits limits;
+
+	/**
+	 * Creates a reader over a memory-mapped file.
+	 */
+	public RandomAccessGIFReader(File file) throws Exception {
+		this(GIFSource.map(file));
+	}
+
+	/**
+	 * Creates a reader over a seekable source positioned at the start of the GIF header.
+	 * The source is closed when the reader is closed.
+	 */
+	public RandomAccessGIFReader(GIFSource source) throws Exception {
+		if(!source.isSeekable())
+			throw new IllegalArgumentException("Source is not seekable");
+		this.source = source;
+		try {
+			index = GIFIndex.build(source);
+		} catch(Exception ex) {
+			source.close();
+			throw ex;
+		}
+		if(index == null) {
+			source.close();
+			throw new IOException("Not a GIF image");
+		}
+	}
+
+	// Creates a reader over an index already built from the same bytes as the source
+	RandomAccessGIFReader(GIFSource source, GIFIndex index) {
+		this.source = source;
+		this.index = index;
+	}
+
+	public void close() throws IOException {
+		compositor = null;
+		checkpoints.clear();
+		source.close();
+	}
+
+	// Checks the i-th frame before anything is allocated for it and returns its number of
+	// pixels. Each call is checked on its own.
+	private int checkFrame(int i) throws DecodeLimitException {
+		GIFIndex.Entry entry = index.getEntry(i);
+		DecodeLimits.Usage usage = new DecodeLimits.Usage(limits);
+		int size = usage.checkFrame(i, entry.getWidth(), entry.getHeight());
+		usage.decoded(size);
+		return size;
+	}
+
+	// Whether the frame composited onto an empty canvas is the same as composited onto the previous frames
+	private boolean isKeyFrame(int i) {
+		if(i == 0) return true;
+		GIFIndex.Entry entry = index.getEntry(i);
+		if(coversScreen(entry) && entry.getTransparencyFlag() != GIFFrame.TRANSPARENCY_INDEX_SET
+				&& entry.getDisposalMethod() != GIFFrame.DISPOSAL_RESTORE_TO_PREVIOUS)
+			return true;
+		GIFIndex.Entry previous = index.getEntry(i - 1);
+		int disposalMethod = previous.getDisposalMethod();
+		if(disposalMethod > GIFFrame.DISPOSAL_RESTORE_TO_PREVIOUS) return true; // Clears the whole canvas
+		return disposalMethod == GIFFrame.DISPOSAL_RESTORE_TO_BACKGROUND && coversScreen(previous);
+	}
+
+	private boolean coversScreen(GIFIndex.Entry entry) {
+		return entry.getLeftPosition() == 0 && entry.getTopPosition() == 0
+				&& entry.getWidth() >= index.getLogicalScreenWidth() && entry.getHeight() >= index.getLogicalScreenHeight();
+	}
+
+	/**
+	 * Composites the i-th frame with the frames before it.
+	 *
+	 * @param i zero based frame index
+	 * @return a BufferedImage the same size as the logical screen and the same as the
+	 *         i-th frame produced by {@link AnimatedGIFReader#read(InputStream)}
+	 * @throws Exception
+	 */
+	public BufferedImage getCompositeFrame(int i) throws Exception {
+		index.getEntry(i); // Range check
+		DecodeLimits.Usage usage = new DecodeLimits.Usage(limits);
+		usage.checkScreen(index.getLogicalScreenWidth(), index.getLogicalScreenHeight());
+		if(compositor == null) {
+			usage.checkCanvas(index.getLogicalScreenWidth(), index.getLogicalScreenHeight());
+			compositor = new FrameCompositor(index.getLogicalScreenWidth(), index.getLogicalScreenHeight());
+			cursor = -1;
+		}
+
+		// Find the closest starting point
+		int start = i;
+		for(; start != cursor; start--) {
+			int[] checkpoint = checkpoints.get(start);
+			if(checkpoint != null) {
+				compositor.restoreCanvas(checkpoint);
+				break;
+			}
+			if(isKeyFrame(start)) {
+				compositor.clear();
+				break;
+			}
+		}
+
+		cursor = -1; // In case of errors
+		int frameSize = index.getLogicalScreenWidth()*index.getLogicalScreenHeight();
+		BufferPool pool = BufferPool.get();
+
+		for(int frame = start; ; frame++) {
+			if(frame%checkpointInterval == 0 && !checkpoints.contains(frame) && !isKeyFrame(frame)
+					&& 4L*frameSize <= checkpoints.getBudget()) {
+				int[] checkpoint = new int[frameSize];
+				compositor.copyCanvas(checkpoint);
+				checkpoints.put(frame, checkpoint);
+			}
+			GIFIndex.Entry entry = index.getEntry(frame);
+			int size = usage.checkFrame(frame, entry.getWidth(), entry.getHeight());
+			usage.decoded(size);
+			Palette colorPalette = readColorPalette(source, index, entry);
+			byte[] pixels = pool.takeBytes(size);
+			source.seek(entry.getDataOffset());
+			AnimatedGIFReader.decodeLZW(source, entry.getWidth(), entry.getHeight(), entry.isInterlaced(), pixels, 0);
+			compositor.drawFrame(pixels, entry.getLeftPosition(), entry.getTopPosition(), entry.getWidth(), entry.getHeight(),
+					colorPalette, entry.getTransparentColor(), entry.getDisposalMethod());
+			pool.release(pixels);
+			if(frame == i) break;
+			compositor.dispose();
+		}
+
+		usage.decoded(4L*frameSize);
+		BufferedImage image = compositor.snapshot();
+		compositor.dispose();
+		cursor = i + 1;
+
+		return image;
+	}
+
+	/**
+	 * Composites the i-th frame with the frames before it.
+	 *
+	 * @param i zero based frame index
+	 * @return a GIFFrame the same as the i-th frame produced by {@link AnimatedGIFReader#read(InputStream)}
+	 * @throws Exception
+	 */
+	public GIFFrame getCompositeGIFFrame(int i) throws Exception {
+		BufferedImage image = getCompositeFrame(i);
+		GIFIndex.Entry entry = index.getEntry(i);
+		return new GIFFrame(image, entry.getLeftPosition(), entry.getTopPosition(), entry.getDelay(),
+				entry.getDisposalMethod(), entry.getUserInputFlag(), entry.getTransparencyFlag(), entry.getTransparentColor());
+	}
+
+	/**
+	 * Decodes the i-th frame of the image.
+	 *
+	 * @param i zero based frame index
+	 * @return a BufferedImage for the frame with the size of the frame image descriptor
+	 * @throws Exception
+	 */
+	public BufferedImage getFrame(int i) throws Exception {
+		checkFrame(i);
+		GIFIndex.Entry entry = index.getEntry(i);
+		Palette colorPalette = readColorPalette(source, index, entry);
+		byte[] pixels = decodeFrame(source, entry);
+
+		return AnimatedGIFReader.createIndexedImage(pixels, entry.getWidth(), entry.getHeight(), entry.getBitsPerPixel(), colorPalette, entry.getTransparentColor());
+	}
+
+	// Decodes the color indices of a frame from a seekable source
+	static byte[] decodeFrame(GIFSource is, GIFIndex.Entry entry) throws Exception {
+		is.seek(entry.getDataOffset());
+
+		if(entry.isInterlaced())
+			return AnimatedGIFReader.decodeLZWInterLaced(is, entry.getWidth(), entry.getHeight());
+
+		return AnimatedGIFReader.decodeLZW(is, entry.getWidth(), entry.getHeight());
+	}
+
+	// Reads the color palette of a frame from a seekable source
+	static Palette readColorPalette(GIFSource is, GIFIndex index, GIFIndex.Entry entry) throws Exception {
+		Palette colorPalette = index.globalColorPalette();
+
+		if(entry.hasLocalPalette()) {
+			is.seek(entry.getPaletteOffset());
+			colorPalette = AnimatedGIFReader.readPalette(is, 1<<entry.getBitsPerPixel());
+		} else if(colorPalette == null)
+			throw new IOException("No color table for frame at offset: " + entry.getOffset());
+
+		return colorPalette;
+	}
+
+	/**
+	 * @param i zero based frame index
+	 * @return a copy of the local color palette of the i-th frame or of the global color palette
+	 *         if it has none, as opaque ARGB values
+	 * @throws Exception
+	 */
+	public int[] getColorPalette(int i) throws Exception {
+		GIFIndex.Entry entry = index.getEntry(i);
+
+		if(entry.hasLocalPalette()) {
+			source.seek(entry.getPaletteOffset());
+			return AnimatedGIFReader.readColorPalette(source, 1<<entry.getBitsPerPixel());
+		}
+		if(index.globalColorPalette() == null)
+			throw new IOException("No color table for frame at offset: " + entry.getOffset());
+
+		return index.getGlobalColorPalette();
+	}
+
+	public int getFrameCount() {
+		return index.getFrameCount();
+	}
+
+	/**
+	 * Decodes the i-th frame of the image together with its position and graphic control parameters.
+	 *
+	 * @param i zero based frame index
+	 * @return a GIFFrame for the i-th frame
+	 * @throws Exception
+	 */
+	public GIFFrame getGIFFrame(int i) throws Exception {
+		GIFIndex.Entry entry = index.getEntry(i);
+		return new GIFFrame(getFrame(i), entry.getLeftPosition(), entry.getTopPosition(), entry.getDelay(),
+				entry.getDisposalMethod(), entry.getUserInputFlag(), entry.getTransparencyFlag(), entry.getTransparentColor());
+	}
+
+	public GIFIndex getIndex() {
+		return index;
+	}
+
+	public int getLogicalScreenHeight() {
+		return index.getLogicalScreenHeight();
+	}
+
+	public int getLogicalScreenWidth() {
+		return index.getLogicalScreenWidth();
+	}
+
+	/**
+	 * Decodes the color indices of the i-th frame, width*height of them row by row from top
+	 * to bottom, the rows of interlaced frames included. Nothing else is allocated. The frame
+	 * rectangle and transparent index are given by the {@link GIFIndex.Entry entry} of the frame.
+	 *
+	 * @param i zero based frame index
+	 * @param dest destination array
+	 * @param offset where to start writing into the destination array
+	 * @return the number of color indices written
+	 * @throws Exception
+	 */
+	public int readPixels(int i, byte[] dest, int offset) throws Exception {
+		int size = checkFrame(i);
+		GIFIndex.Entry entry = index.getEntry(i);
+		if(offset < 0 || dest.length - offset < size)
+			throw new IndexOutOfBoundsException("Not enough room for " + size + " bytes at offset " + offset);
+
+		source.seek(entry.getDataOffset());
+		AnimatedGIFReader.decodeLZW(source, entry.getWidth(), entry.getHeight(), entry.isInterlaced(), dest, offset);
+
+		return size;
+	}
+
+	/**
+	 * Same as {@link #readPixels(int, byte[], int)} but writes to the buffer starting at its
+	 * position and advances the position. Buffers without an accessible array go through a
+	 * temporary array.
+	 */
+	public int readPixels(int i, ByteBuffer dest) throws Exception {
+		int size = checkFrame(i);
+		GIFIndex.Entry entry = index.getEntry(i);
+		if(dest.remaining() < size)
+			throw new BufferOverflowException();
+
+		if(dest.hasArray()) {
+			readPixels(i, dest.array(), dest.arrayOffset() + dest.position());
+			dest.position(dest.position() + size);
+		} else
+			dest.put(decodeFrame(source, entry));
+
+		return size;
+	}
+
+	/**
+	 * @param budget maximum number of bytes used by the cached canvas snapshots,
+	 *        defaults to {@link #DEFAULT_CHECKPOINT_BUDGET}. 0 disables caching.
+	 */
+	public void setCheckpointBudget(long budget) {
+		checkpoints.setBudget(budget);
+	}
+
+	/**
+	 * @param interval the canvas is snapshotted before every interval-th frame, defaults to
+	 *        {@link #DEFAULT_CHECKPOINT_INTERVAL}
+	 */
+	public void setCheckpointInterval(int interval) {
+		if(interval < 1)
+			throw new IllegalArgumentException("Invalid interval: " + interval);
+		this.checkpointInterval = interval;
+	}
+
+	/**
+	 * @param limits resource limits or null, the default, for none. The index is built
+	 *        before the limits can be set, they are checked by each call decoding frames
+	 *        on its own: the frames replayed and the images created by the call.
+	 */
+	public void setDecodeLimits(DecodeLimits limits) {
+		this.limits = limits;
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * RowBlender.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+
+/**
+ * Expands a row of color indices to ARGB through a lookup table and blends it into the
+ * canvas, skipping the pixels which map to 0: the transparent index and the indices
+ * outside of the palette.
+ * <p>
+ * This class is the scalar implementation. When the runtime has the incubating Vector
+ * API (JDK 17 or later started with {@code --add-modules jdk.incubator.vector}) and the
+ * {@code VectorRowBlender} compiled from src-vector is on the class path,
+ * {@link #create()} returns that one instead. Setting the system property
+ * {@code com.github.dragon66.vector} to false forces the scalar implementation.
+ * <p>
+ * An instance may keep scratch buffers and must only be used by one thread at a time.
+ */
+class RowBlender {
+	private static final Constructor<? extends RowBlender> VECTOR = findVectorBlender();
+
+	/**
+	 * @return the Vector API implementation if available or the scalar one otherwise
+	 */
+	static RowBlender create() {
+		if(VECTOR != null) {
+			try {
+				return VECTOR.newInstance();
+			} catch(Exception ex) {
+				// Fall back to scalar
+			}
+		}
+		return new RowBlender();
+	}
+
+	/**
+	 * @return true if {@link #create()} returns the Vector API implementation
+	 */
+	static boolean isVectorized() {
+		return VECTOR != null;
+	}
+
+	// Loads the Vector API implementation and checks it against the scalar one
+	private static Constructor<? extends RowBlender> findVectorBlender() {
+		if(!Boolean.parseBoolean(System.getProperty("com.github.dragon66.vector", "true")))
+			return null;
+		try {
+			Constructor<? extends RowBlender> constructor = Class.forName("com.github.dragon66.VectorRowBlender")
+					.asSubclass(RowBlender.class).getDeclaredConstructor();
+			// A few odd lengths to go through both the vector loop and the tail
+			int[] lut = new int[256];
+			byte[] indices = new byte[301];
+			for(int i = 0; i < lut.length; i++)
+				lut[i] = (i%7 == 0)? 0 : 0xff000000|(i*0x010203);
+			for(int i = 0; i < indices.length; i++)
+				indices[i] = (byte)(i*37);
+			RowBlender vector = constructor.newInstance();
+			RowBlender scalar = new RowBlender();
+			for(int length = 0; length < indices.length; length += 37) {
+				int[] expected = new int[length + 2];
+				int[] actual = new int[length + 2];
+				scalar.blend(lut, indices, 0, expected, 1, length);
+				vector.blend(lut, indices, 0, actual, 1, length);
+				if(!Arrays.equals(expected, actual))
+					return null;
+			}
+			return constructor;
+		} catch(Throwable t) { // Not compiled in, no Vector API or running on an older JDK
+			return null;
+		}
+	}
+
+	/**
+	 * @param lut 256 entry color index to ARGB table, 0 means skip
+	 * @param indices color indices
+	 * @param src offset of the first index of the row
+	 * @param target ARGB pixels of the canvas
+	 * @param dst offset of the first pixel of the row on the canvas
+	 * @param length number of pixels in the row
+	 */
+	void blend(int[] lut, byte[] indices, int src, int[] target, int dst, int length) {
+		for(int end = dst + length; dst < end; dst++) {
+			int argb = lut[indices[src++]&0xff];
+			if(argb != 0) target[dst] = argb;
+		}
+	}
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * ThumbnailGIFReader.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+/**
+ * Reads an animated GIF at a reduced resolution and/or for a region of the logical screen only.
+ * <p>
+ * With a subsampling factor of f and a source region at (x, y), pixel (c, r) of a frame
+ * is the pixel (x + c*f, y + r*f) of the logical screen, i.e., the composited frames are
+ * cropped to the region and subsampled by point sampling. Full resolution frames are
+ * never built: the image data is LZW decoded one row at a time and only the sampled
+ * pixels of the sampled rows are kept. The frames are then composited at the reduced
+ * size with the frame rectangles, and therefore the disposal rectangles, mapped to the
+ * sampled pixels they cover. The frames produced are the same as the frames produced
+ * by {@link AnimatedGIFReader#read(InputStream)} cropped and subsampled the same way.
+ * <p>
+ * The image data of frames which don't cover any sampled pixel is skipped without
+ * being LZW decoded. For the other frames, LZW decoding stops as soon as the last row
+ * needed has been decoded, which for non-interlaced frames is the last sampled row
+ * inside the region.
+ */
+public class ThumbnailGIFReader {
+	private int subsampling = 1;
+	private DecodeLimits limits;
+	private int targetWidth;
+	private int targetHeight;
+	private Rectangle sourceRegion;
+	// Source region of the last read clipped to the logical screen
+	private Rectangle region = new Rectangle();
+	// To keep track of all the frames
+	private List<GIFFrame> gifFrames;
+	private int logicalScreenWidth;
+	private int logicalScreenHeight;
+	// Scratch buffers
+	private byte[] row = new byte[0];
+	private byte[] sampled = new byte[0];
+
+	public BufferedImage getFrame(int i) {
+		GIFFrame frame = getGIFFrame(i);
+		return (frame != null)? frame.getFrame() : null;
+	}
+
+	public int getFrameCount() {
+		if(gifFrames != null)
+			return gifFrames.size();
+		return 0;
+	}
+
+	public GIFFrame getGIFFrame(int i) {
+		if(gifFrames == null) return null;
+		if(i < 0 || i >= gifFrames.size())
+			throw new IndexOutOfBoundsException("Index: " + i);
+		return gifFrames.get(i);
+	}
+
+	public List<GIFFrame> getGIFFrames() {
+		if(gifFrames != null)
+			return Collections.unmodifiableList(gifFrames);
+		return Collections.emptyList();
+	}
+
+	public int getLogicalScreenHeight() {
+		return logicalScreenHeight;
+	}
+
+	public int getLogicalScreenWidth() {
+		return logicalScreenWidth;
+	}
+
+	/**
+	 * @return the subsampling factor used by the last read
+	 */
+	public int getSubsampling() {
+		return subsampling;
+	}
+
+	/**
+	 * @return height of the frames read
+	 */
+	public int getHeight() {
+		return ceilDiv(region.height, subsampling);
+	}
+
+	/**
+	 * @return the source region of the last read clipped to the logical screen
+	 */
+	public Rectangle getSourceRegion() {
+		return new Rectangle(region);
+	}
+
+	/**
+	 * @return width of the frames read
+	 */
+	public int getWidth() {
+		return ceilDiv(region.width, subsampling);
+	}
+
+	public BufferedImage read(InputStream is) throws Exception {
+		return read(GIFSource.wrap(is));
+	}
+
+	/**
+	 * @param is GIFSource for the GIF/Animated GIF
+	 * @return the first frame or null if the input is not a GIF
+	 * @throws Exception
+	 */
+	public BufferedImage read(GIFSource is) throws Exception {
+		gifFrames = null;
+		GIFIndex header = GIFIndex.readHeader(is);
+		if(header == null) return null;
+		DecodeLimits.Usage usage = new DecodeLimits.Usage(limits);
+		usage.checkScreen(header.getLogicalScreenWidth(), header.getLogicalScreenHeight());
+
+		logicalScreenWidth = header.getLogicalScreenWidth();
+		logicalScreenHeight = header.getLogicalScreenHeight();
+		region = new Rectangle(0, 0, logicalScreenWidth, logicalScreenHeight);
+		if(sourceRegion != null)
+			region = region.intersection(sourceRegion);
+		if(region.isEmpty())
+			throw new IllegalArgumentException("Source region outside of the logical screen: " + sourceRegion);
+		if(targetWidth > 0)
+			subsampling = Math.max(1, Math.min(region.width/targetWidth, region.height/targetHeight));
+
+		gifFrames = new ArrayList<GIFFrame>();
+		int canvasSize = usage.checkCanvas(getWidth(), getHeight());
+		FrameCompositor compositor = new FrameCompositor(getWidth(), getHeight());
+		GIFIndex.Entry entry = null;
+
+		while((entry = GIFIndex.readEntry(is, header)) != null) {
+			usage.checkFrame(gifFrames.size(), entry.getWidth(), entry.getHeight());
+			Palette colorPalette = header.globalColorPalette();
+			if(entry.hasLocalPalette())
+				colorPalette = AnimatedGIFReader.readPalette(is, 1<<entry.getBitsPerPixel());
+			else if(colorPalette == null)
+				throw new IOException("No color table for frame at offset: " + entry.getOffset());
+			// Sampled pixels covered by the frame
+			int x = Math.max(ceilDiv(entry.getLeftPosition() - region.x, subsampling), 0);
+			int y = Math.max(ceilDiv(entry.getTopPosition() - region.y, subsampling), 0);
+			int width = Math.max(Math.min(ceilDiv(entry.getLeftPosition() + entry.getWidth() - region.x, subsampling), getWidth()) - x, 0);
+			int height = Math.max(Math.min(ceilDiv(entry.getTopPosition() + entry.getHeight() - region.y, subsampling), getHeight()) - y, 0);
+
+			if(width == 0 || height == 0) { // Nothing to decode, the disposal method still applies
+				is.read(); // LZW minimum code size
+				GIFIndex.skipSubBlocks(is);
+			} else {
+				usage.decoded((long)width*height);
+				decodeSubsampled(is, entry, x, y, width, height);
+			}
+			compositor.drawFrame(sampled, x, y, width, height, colorPalette, entry.getTransparentColor(), entry.getDisposalMethod());
+			usage.decoded(4L*canvasSize);
+			gifFrames.add(new GIFFrame(compositor.snapshot(), entry.getLeftPosition(), entry.getTopPosition(), entry.getDelay(),
+					entry.getDisposalMethod(), entry.getUserInputFlag(), entry.getTransparencyFlag(), entry.getTransparentColor()));
+			compositor.dispose();
+		}
+
+		return gifFrames.isEmpty()? null : gifFrames.get(0).getFrame();
+	}
+
+	private static int ceilDiv(int a, int b) {
+		return -Math.floorDiv(-a, b);
+	}
+
+	// Decodes the image data of a frame into the sampled buffer keeping only the sampled
+	// pixels from (x, y) to (x + sampledWidth, y + sampledHeight)
+	private void decodeSubsampled(GIFSource is, GIFIndex.Entry entry, int x, int y, int sampledWidth, int sampledHeight) throws Exception {
+		int factor = subsampling;
+		int width = entry.getWidth();
+		int height = entry.getHeight();
+		int top = entry.getTopPosition() - region.y; // Relative to the region
+		int firstColumn = region.x + x*factor - entry.getLeftPosition();
+		int rowsLeft = sampledHeight;
+
+		if(row.length < width) row = new byte[width];
+		if(sampled.length < sampledWidth*sampledHeight) sampled = new byte[sampledWidth*sampledHeight];
+		Arrays.fill(sampled, 0, sampledWidth*sampledHeight, (byte)0); // In case of truncated image data
+
+		int min_code_size = is.read();// The length of the root
+		BufferPool pool = BufferPool.get();
+		LZWTreeDecoder decoder = pool.takeDecoder(is, min_code_size);
+		try {
+			int passes = entry.isInterlaced()? AnimatedGIFReader.PASS_START.length : 1;
+
+			rows:
+			for(int pass = 0; pass < passes; pass++) {
+				int step = entry.isInterlaced()? AnimatedGIFReader.PASS_STEP[pass] : 1;
+				for(int r = entry.isInterlaced()? AnimatedGIFReader.PASS_START[pass] : 0; r < height; r += step) {
+					int count = decoder.decode(row, 0, width);
+					if(count < width) Arrays.fill(row, count, width, (byte)0);
+					int sampledRow = (top + r)/factor - y;
+					if(top + r >= 0 && (top + r)%factor == 0 && sampledRow >= 0 && sampledRow < sampledHeight) {
+						int index = sampledRow*sampledWidth;
+						for(int i = 0, c = firstColumn; i < sampledWidth; i++, c += factor)
+							sampled[index++] = row[c];
+						rowsLeft--;
+					}
+					if(count < width) break rows; // Truncated image data
+					if(rowsLeft == 0) break rows; // The rest of the image data is not needed
+				}
+			}
+
+			decoder.skipToEnd();
+		} finally {
+			pool.release(decoder);
+		}
+	}
+
+	/**
+	 * @param limits resource limits checked while reading or null, the default, for none.
+	 *        The limits on the logical screen and frame sizes apply to the full resolution
+	 *        sizes, the decoded bytes are the ones of the subsampled frames.
+	 */
+	public void setDecodeLimits(DecodeLimits limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * @param sourceRegion region of the logical screen to read or null to read the whole
+	 *        logical screen which is the default. The region is clipped to the logical screen.
+	 */
+	public void setSourceRegion(Rectangle sourceRegion) {
+		this.sourceRegion = (sourceRegion != null)? new Rectangle(sourceRegion) : null;
+	}
+
+	/**
+	 * @param subsampling keep one pixel out of subsampling in each direction, defaults to 1.
+	 *        Overrides a previous {@link #setTargetSize(int, int) target size}.
+	 */
+	public void setSubsampling(int subsampling) {
+		if(subsampling < 1)
+			throw new IllegalArgumentException("Invalid subsampling: " + subsampling);
+		this.subsampling = subsampling;
+		this.targetWidth = this.targetHeight = 0;
+	}
+
+	/**
+	 * Chooses the largest subsampling factor which keeps the frames at least as large as
+	 * the target size. The factor is based on the source region if there is one. The exact
+	 * target size is left to the caller to scale to.
+	 */
+	public void setTargetSize(int width, int height) {
+		if(width < 1 || height < 1)
+			throw new IllegalArgumentException("Invalid target size: " + width + "x" + height);
+		this.targetWidth = width;
+		this.targetHeight = height;
+	}
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * AnimatedGIFReaderTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+public class AnimatedGIFReaderTest {
+	private static final int SIZE = 8;
+
+	/*
+	 * A screen filled with a position dependent pattern, then a frame away from the
+	 * top left corner restored to previous and finally a single pixel frame which
+	 * leaves the restored screen in place.
+	 */
+	private static byte[] restoreToPreviousGIF() {
+		byte[] background = new byte[SIZE*SIZE];
+		for(int i = 0; i < background.length; i++)
+			background[i] = (byte)((i%SIZE + 2*(i/SIZE))%4);
+		byte[] covering = new byte[16];
+		Arrays.fill(covering, (byte)3);
+		return new GIFBuilder(SIZE, SIZE)
+				.frame(0, 0, SIZE, SIZE, GIFFrame.DISPOSAL_LEAVE_AS_IS, 10, background)
+				.frame(2, 3, 4, 4, GIFFrame.DISPOSAL_RESTORE_TO_PREVIOUS, 10, covering)
+				.frame(0, 0, 1, 1, GIFFrame.DISPOSAL_LEAVE_AS_IS, 10, new byte[] {background[0]})
+				.toByteArray();
+	}
+
+	/*
+	 * A screen filled with a pattern, the same frame again byte for byte, a single pixel
+	 * frame which draws the color already there and finally a frame which changes the screen.
+	 */
+	private static byte[] duplicatesGIF() {
+		byte[] background = new byte[SIZE*SIZE];
+		for(int i = 0; i < background.length; i++)
+			background[i] = (byte)((i%SIZE + 2*(i/SIZE))%4);
+		byte[] covering = new byte[16];
+		Arrays.fill(covering, (byte)3);
+		return new GIFBuilder(SIZE, SIZE)
+				.frame(0, 0, SIZE, SIZE, GIFFrame.DISPOSAL_LEAVE_AS_IS, 10, background)
+				.frame(0, 0, SIZE, SIZE, GIFFrame.DISPOSAL_LEAVE_AS_IS, 20, background)
+				.frame(1, 0, 1, 1, GIFFrame.DISPOSAL_LEAVE_AS_IS, 5, new byte[] {background[1]})
+				.frame(2, 3, 4, 4, GIFFrame.DISPOSAL_LEAVE_AS_IS, 7, covering)
+				.toByteArray();
+	}
+
+	@Test
+	public void duplicateFrames() throws Exception {
+		byte[] gif = duplicatesGIF();
+		// Seekable or not
+		for(boolean seekable : new boolean[] {true, false}) {
+			String name = seekable? "seekable" : "stream";
+			AnimatedGIFReader reader = new AnimatedGIFReader();
+			reader.read(seekable? GIFSource.wrap(gif) : GIFSource.wrap(new ByteArrayInputStream(gif)));
+			List<BufferedImage> kept = reader.getFrames();
+			assertEquals(name, 4, kept.size());
+			assertNotSame(name, kept.get(0), kept.get(1));
+			assertNotSame(name, kept.get(1), kept.get(2));
+
+			reader.setDuplicateFrames(AnimatedGIFReader.DUPLICATE_FRAMES_SHARE);
+			reader.read(seekable? GIFSource.wrap(gif) : GIFSource.wrap(new ByteArrayInputStream(gif)));
+			List<BufferedImage> shared = reader.getFrames();
+			assertEquals(name, 4, shared.size());
+			assertSame(name, shared.get(0), shared.get(1));
+			assertSame(name, shared.get(0), shared.get(2));
+			assertNotSame(name, shared.get(2), shared.get(3));
+			for(int i = 0; i < 4; i++) {
+				assertArrayEquals(name + " frame " + i, TestImages.argb(kept.get(i)), TestImages.argb(shared.get(i)));
+				assertEquals(name + " frame " + i, new int[] {10, 20, 5, 7}[i], reader.getGIFFrame(i).getDelay());
+			}
+
+			reader.setDuplicateFrames(AnimatedGIFReader.DUPLICATE_FRAMES_MERGE);
+			reader.read(seekable? GIFSource.wrap(gif) : GIFSource.wrap(new ByteArrayInputStream(gif)));
+			List<GIFFrame> merged = reader.getGIFFrames();
+			assertEquals(name, 2, merged.size());
+			assertEquals(name, 2, reader.getFrames().size());
+			assertEquals(name, 35, merged.get(0).getDelay());
+			assertEquals(name, 7, merged.get(1).getDelay());
+			assertArrayEquals(name, TestImages.argb(kept.get(0)), TestImages.argb(merged.get(0).getFrame()));
+			assertArrayEquals(name, TestImages.argb(kept.get(3)), TestImages.argb(merged.get(1).getFrame()));
+		}
+	}
+
+	@Test
+	public void restoreToPreviousAwayFromOrigin() throws Exception {
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.read(new ByteArrayInputStream(restoreToPreviousGIF()));
+		List<BufferedImage> frames = reader.getFrames();
+		assertEquals(3, frames.size());
+		// The frame restored to previous leaves the screen as it was before it
+		assertArrayEquals(TestImages.argb(frames.get(0)), TestImages.argb(frames.get(2)));
+	}
+
+	@Test
+	public void twoImagesUnderLimits() throws Exception {
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxFrameCount(4);
+		limits.setPartialResults(true);
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.setDecodeLimits(limits);
+		reader.read(new ByteArrayInputStream(TestImages.IMAGES.get(1)));
+		assertNotNull(reader.getLimitViolation());
+		assertTrue(reader.getFrameCount() < TestImages.FRAMES.get(1).size());
+
+		// Nothing of the first image counts against the limits of the second one
+		byte[] gif = GIFCorpus.generate(40, 30, 4, false, true, 1);
+		List<int[]> expected = TestImages.composite(gif);
+		reader.reset();
+		assertNull(reader.getLimitViolation());
+		GIFSource source = GIFSource.wrap(gif);
+		List<int[]> frames = new ArrayList<int[]>();
+		BufferedImage frame = null;
+		while((frame = reader.getFrameAsBufferedImageEx(source)) != null)
+			frames.add(TestImages.argb(frame));
+		TestImages.assertFrames("frame by frame", expected, frames);
+
+		reader.read(new ByteArrayInputStream(gif));
+		assertNull(reader.getLimitViolation());
+		List<int[]> read = new ArrayList<int[]>();
+		for(BufferedImage image : reader.getFrames())
+			read.add(TestImages.argb(image));
+		TestImages.assertFrames("read", expected, read);
+	}
+
+	@Test
+	public void interlaced() throws Exception {
+		// The same frames stored interlaced or not, heights from 1 to past a full 8 row pass
+		for(int height = 1; height <= 20; height++) {
+			for(int disposalMethod = 0; disposalMethod <= 3; disposalMethod++) {
+				List<int[]> expected = TestImages.composite(GIFCorpus.generate(17, height, 4, false, true, disposalMethod));
+				TestImages.assertFrames("height " + height + " disposal " + disposalMethod, expected,
+						TestImages.composite(GIFCorpus.generate(17, height, 4, true, true, disposalMethod)));
+			}
+		}
+		// Color indices in row order whatever the storage order
+		RandomAccessGIFReader progressive = new RandomAccessGIFReader(GIFSource.wrap(GIFCorpus.generate(97, 61, 8, true, false, 1)));
+		RandomAccessGIFReader sequential = new RandomAccessGIFReader(GIFSource.wrap(GIFCorpus.generate(97, 61, 8, false, false, 1)));
+		for(int i = 0; i < sequential.getFrameCount(); i++) {
+			byte[] expected = new byte[97*61];
+			byte[] actual = new byte[97*61];
+			sequential.readPixels(i, expected, 0);
+			progressive.readPixels(i, actual, 0);
+			assertArrayEquals("frame " + i, expected, actual);
+		}
+	}
+
+	@Test
+	public void previews() throws Exception {
+		for(int disposalMethod = 0; disposalMethod <= 3; disposalMethod++) {
+			byte[] gif = GIFCorpus.generate(97, 61, 6, true, disposalMethod%2 == 0, disposalMethod);
+			final List<Integer> passes = new ArrayList<Integer>();
+			final List<int[]> previews = new ArrayList<int[]>();
+			AnimatedGIFReader reader = new AnimatedGIFReader();
+			reader.setProgressListener(new AnimatedGIFReader.ProgressListener() {
+				public void onPass(int pass, BufferedImage image) {
+					passes.add(pass);
+					previews.add(TestImages.argb(image));
+				}
+			});
+			reader.read(new ByteArrayInputStream(gif));
+			String name = "disposal " + disposalMethod;
+			// Previews don't change the frames
+			List<int[]> frames = new ArrayList<int[]>();
+			for(BufferedImage frame : reader.getFrames())
+				frames.add(TestImages.argb(frame));
+			List<int[]> expected = TestImages.composite(gif);
+			TestImages.assertFrames(name, expected, frames);
+			List<GIFIndex.Entry> entries = GIFMetadata.probe(GIFSource.wrap(gif)).getFrames();
+			assertEquals(name, 4*expected.size(), passes.size());
+			for(int i = 0; i < expected.size(); i++) {
+				int top = entries.get(i).getTopPosition();
+				int bottom = top + entries.get(i).getHeight();
+				int[] frame = expected.get(i);
+				for(int pass = 1; pass <= 4; pass++) {
+					assertEquals(name + " frame " + i, pass, passes.get(4*i + pass - 1).intValue());
+					int[] preview = previews.get(4*i + pass - 1);
+					// The rows decoded so far are final as are the rows outside of the frame
+					int step = (pass < 4)? AnimatedGIFReader.PASS_STEP[pass] : 1;
+					for(int y = 0; y < 61; y++) {
+						if(y >= top && y < bottom && (y - top)%step != 0) continue;
+						for(int x = 0; x < 97; x++)
+							assertEquals(name + " frame " + i + " pass " + pass + " at " + x + "," + y, frame[y*97 + x], preview[y*97 + x]);
+					}
+				}
+			}
+		}
+		// Nothing for frames which are not interlaced
+		final List<Integer> passes = new ArrayList<Integer>();
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.setProgressListener(new AnimatedGIFReader.ProgressListener() {
+			public void onPass(int pass, BufferedImage image) {
+				passes.add(pass);
+			}
+		});
+		reader.read(new ByteArrayInputStream(GIFCorpus.generate(97, 61, 6, false, true, 1)));
+		assertTrue(passes.isEmpty());
+	}
+}
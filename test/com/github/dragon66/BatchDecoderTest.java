@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * BatchDecoderTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchDecoderTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private List<File> files(int count, byte[] gif) throws Exception {
+		List<File> files = new ArrayList<File>();
+		for(int i = 0; i < count; i++) {
+			File file = folder.newFile("image" + i + ".gif");
+			Files.write(file.toPath(), gif);
+			files.add(file);
+		}
+		return files;
+	}
+
+	// Keeps track of the most files decoded at the same time
+	private static class Overlap implements BatchDecoder.Handler {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger max = new AtomicInteger();
+
+		public void decoded(File file, AnimatedGIFReader reader) throws Exception {
+			int count = running.incrementAndGet();
+			while(true) {
+				int current = max.get();
+				if(count <= current || max.compareAndSet(current, count)) break;
+			}
+			Thread.sleep(20);
+			running.decrementAndGet();
+		}
+	}
+
+	private static BatchReport run(BatchDecoder decoder, List<File> files) throws Exception {
+		return decoder.run(files.iterator());
+	}
+
+	@Test
+	public void memoryBudget() throws Exception {
+		byte[] gif = TestImages.IMAGES.get(1);
+		long memory = BatchDecoder.predictMemory(GIFMetadata.probe(GIFSource.wrap(gif)));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			BatchDecoder decoder = new BatchDecoder(executor);
+			// Room for two files at a time
+			decoder.setMemoryBudget(2*memory + memory/2);
+			Overlap overlap = new Overlap();
+			decoder.setHandler(overlap);
+			BatchReport report = run(decoder, files(8, gif));
+			assertEquals(8, report.getDecodedCount());
+			assertEquals(0, report.getRejectedCount());
+			assertEquals(0, report.getFailedCount());
+			assertTrue(overlap.max.get() <= 2);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void maxConcurrency() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			BatchDecoder decoder = new BatchDecoder(executor);
+			decoder.setMaxConcurrency(1);
+			Overlap overlap = new Overlap();
+			decoder.setHandler(overlap);
+			BatchReport report = run(decoder, files(4, TestImages.IMAGES.get(1)));
+			assertEquals(4, report.getDecodedCount());
+			assertEquals(1, overlap.max.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void rejectedAndFailed() throws Exception {
+		byte[] gif = TestImages.IMAGES.get(1);
+		long memory = BatchDecoder.predictMemory(GIFMetadata.probe(GIFSource.wrap(gif)));
+		List<File> files = files(2, gif);
+		File notAGIF = folder.newFile("text.gif");
+		Files.write(notAGIF.toPath(), "Not a GIF image at all".getBytes());
+		files.add(notAGIF);
+		files.add(new File(folder.getRoot(), "missing.gif"));
+		BatchDecoder decoder = new BatchDecoder();
+		// Over the budget
+		decoder.setMemoryBudget(memory - 1);
+		BatchReport report = run(decoder, files);
+		assertEquals(0, report.getDecodedCount());
+		assertEquals(3, report.getRejectedCount());
+		assertEquals(1, report.getFailedCount());
+		// Over the limits
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxFrameCount(1);
+		decoder = new BatchDecoder();
+		decoder.setDecodeLimits(limits);
+		report = run(decoder, files.subList(0, 2));
+		assertEquals(0, report.getDecodedCount());
+		assertEquals(2, report.getFailedCount());
+	}
+
+	@Test
+	public void virtualThreads() throws Exception {
+		String version = System.getProperty("java.specification.version");
+		int feature = version.startsWith("1.")? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+		ExecutorService executor = BatchDecoder.virtualThreadExecutor();
+		assertEquals(feature >= 21, executor != null);
+		if(executor == null) return;
+		try {
+			BatchReport report = run(new BatchDecoder(executor), files(4, TestImages.IMAGES.get(1)));
+			assertEquals(4, report.getDecodedCount());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * BufferPoolTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class BufferPoolTest {
+	@After
+	public void clear() {
+		BufferPool.setCapacity(BufferPool.DEFAULT_CAPACITY);
+		BufferPool.clear();
+	}
+
+	@Test
+	public void smallestFit() {
+		BufferPool pool = BufferPool.get();
+		byte[] large = new byte[1000];
+		byte[] small = new byte[100];
+		pool.release(large);
+		pool.release(small);
+		assertSame(small, pool.takeBytes(50));
+		assertSame(large, pool.takeBytes(50));
+		assertEquals(50, pool.takeBytes(50).length);
+	}
+
+	@Test
+	public void capacity() {
+		BufferPool pool = BufferPool.get();
+		BufferPool.setCapacity(1000);
+		byte[] first = new byte[600];
+		byte[] second = new byte[600];
+		pool.release(first);
+		// The oldest buffer makes room for the new one
+		pool.release(second);
+		assertSame(second, pool.takeBytes(600));
+		assertNotSame(first, pool.takeBytes(600));
+		// Larger than the capacity
+		byte[] large = new byte[2000];
+		pool.release(large);
+		assertNotSame(large, pool.takeBytes(2000));
+	}
+
+	@Test
+	public void disabled() {
+		BufferPool pool = BufferPool.get();
+		BufferPool.setCapacity(0);
+		byte[] buf = new byte[10];
+		pool.release(buf);
+		assertNotSame(buf, pool.takeBytes(10));
+	}
+
+	@Test
+	public void perThread() throws Exception {
+		final byte[] buf = new byte[100];
+		BufferPool.get().release(buf);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			byte[] other = executor.submit(new Callable<byte[]>() {
+				public byte[] call() {
+					return BufferPool.get().takeBytes(100);
+				}
+			}).get();
+			assertNotSame(buf, other);
+		} finally {
+			executor.shutdown();
+		}
+		assertSame(buf, BufferPool.get().takeBytes(100));
+	}
+
+	@Test
+	public void decoder() {
+		BufferPool pool = BufferPool.get();
+		GIFSource source = GIFSource.wrap(new byte[0]);
+		LZWTreeDecoder decoder = pool.takeDecoder(source, 8);
+		pool.release(decoder);
+		assertSame(decoder, pool.takeDecoder(source, 2));
+		// Taken, not shared
+		assertNotSame(decoder, pool.takeDecoder(source, 2));
+		pool.release(decoder);
+		BufferPool.clear();
+		assertNotSame(decoder, pool.takeDecoder(source, 2));
+	}
+
+	@Test
+	public void pooledDecoding() throws Exception {
+		// Frames don't depend on what was left in the pooled buffers by the previous images
+		for(int n = 0; n < TestImages.IMAGES.size(); n++)
+			TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), TestImages.composite(TestImages.IMAGES.get(n)));
+		for(int n = TestImages.IMAGES.size() - 1; n >= 0; n--)
+			TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), TestImages.composite(TestImages.IMAGES.get(n)));
+	}
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * DecodeLimitsTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+public class DecodeLimitsTest {
+	// 97x61, 8 frames
+	private static final byte[] GIF = TestImages.IMAGES.get(2);
+
+	private static DecodeLimitException read(DecodeLimits limits) throws Exception {
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.setDecodeLimits(limits);
+		try {
+			reader.read(new ByteArrayInputStream(GIF));
+		} catch(DecodeLimitException ex) {
+			return ex;
+		}
+		return null;
+	}
+
+	private static void assertViolation(int limit, long maximum, long actual, DecodeLimitException ex) {
+		assertNotNull("No violation", ex);
+		assertEquals(limit, ex.getLimit());
+		assertEquals(maximum, ex.getMaximum());
+		assertEquals(actual, ex.getActual());
+	}
+
+	@Test
+	public void screenPixels() throws Exception {
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxScreenPixels(97*61 - 1);
+		assertViolation(DecodeLimitException.SCREEN_PIXELS, 97*61 - 1, 97*61, read(limits));
+		limits.setMaxScreenPixels(97*61);
+		assertNull(read(limits));
+	}
+
+	@Test
+	public void framePixels() throws Exception {
+		long largest = 0;
+		for(GIFIndex.Entry entry : GIFMetadata.probe(GIFSource.wrap(GIF)).getFrames())
+			largest = Math.max(largest, (long)entry.getWidth()*entry.getHeight());
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxFramePixels(largest - 1);
+		assertViolation(DecodeLimitException.FRAME_PIXELS, largest - 1, largest, read(limits));
+		limits.setMaxFramePixels(largest);
+		assertNull(read(limits));
+	}
+
+	@Test
+	public void frameCount() throws Exception {
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxFrameCount(3);
+		assertViolation(DecodeLimitException.FRAME_COUNT, 3, 4, read(limits));
+		limits.setMaxFrameCount(8);
+		assertNull(read(limits));
+	}
+
+	@Test
+	public void decodedBytes() throws Exception {
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxDecodedBytes(100000);
+		DecodeLimitException ex = read(limits);
+		assertNotNull(ex);
+		assertEquals(DecodeLimitException.DECODED_BYTES, ex.getLimit());
+		assertTrue(ex.getActual() > 100000);
+	}
+
+	@Test
+	public void decodeTime() throws Exception {
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxDecodeTime(5);
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.setDecodeLimits(limits);
+		// Slow frames
+		reader.setDecodeMetrics(new DecodeMetrics() {
+			public void frameRead(FrameStats stats) {
+				try {
+					Thread.sleep(10);
+				} catch(InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			reader.read(new ByteArrayInputStream(GIF));
+			fail("Decode time not checked");
+		} catch(DecodeLimitException ex) {
+			assertEquals(DecodeLimitException.DECODE_TIME, ex.getLimit());
+			assertTrue(ex.getActual() > 5);
+		}
+	}
+
+	@Test
+	public void partialResults() throws Exception {
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxFrameCount(3);
+		limits.setPartialResults(true);
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.setDecodeLimits(limits);
+		reader.read(new ByteArrayInputStream(GIF));
+		assertViolation(DecodeLimitException.FRAME_COUNT, 3, 4, reader.getLimitViolation());
+		// The frames before the violation
+		List<int[]> frames = new ArrayList<int[]>();
+		for(BufferedImage frame : reader.getFrames())
+			frames.add(TestImages.argb(frame));
+		TestImages.assertFrames("partial", TestImages.FRAMES.get(2).subList(0, 3), frames);
+		// Nothing to keep
+		limits.setMaxScreenPixels(10);
+		try {
+			reader.read(new ByteArrayInputStream(GIF));
+			fail("No frames but no violation");
+		} catch(DecodeLimitException ex) {
+			assertEquals(DecodeLimitException.SCREEN_PIXELS, ex.getLimit());
+		}
+	}
+
+	@Test
+	public void everyReader() throws Exception {
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxFrameCount(3);
+
+		GIFFrameIterator iterator = new GIFFrameIterator(GIFSource.wrap(GIF));
+		iterator.setDecodeLimits(limits);
+		try {
+			while(iterator.hasNext())
+				iterator.next();
+			fail("GIFFrameIterator");
+		} catch(UncheckedIOException ex) {
+			assertEquals(DecodeLimitException.FRAME_COUNT, ((DecodeLimitException)ex.getCause()).getLimit());
+		}
+
+		GIFPushParser parser = new GIFPushParser(new GIFPushParser.Listener() {
+			public void onFrame(GIFFrame frame) {}
+		});
+		parser.setDecodeLimits(limits);
+		try {
+			parser.feed(ByteBuffer.wrap(GIF));
+			parser.end();
+			fail("GIFPushParser");
+		} catch(DecodeLimitException ex) {
+			assertEquals(DecodeLimitException.FRAME_COUNT, ex.getLimit());
+		}
+
+		ParallelGIFReader parallel = new ParallelGIFReader();
+		parallel.setDecodeLimits(limits);
+		try {
+			parallel.read(GIFSource.wrap(GIF));
+			fail("ParallelGIFReader");
+		} catch(DecodeLimitException ex) {
+			assertEquals(DecodeLimitException.FRAME_COUNT, ex.getLimit());
+		}
+
+		PipelinedGIFReader pipelined = new PipelinedGIFReader();
+		pipelined.setDecodeLimits(limits);
+		FrameRing ring = new FrameRing(2);
+		pipelined.start(GIFSource.wrap(GIF), ring);
+		try {
+			FrameRing.Slot slot = null;
+			while((slot = ring.take()) != null)
+				ring.release(slot);
+			fail("PipelinedGIFReader");
+		} catch(DecodeLimitException ex) {
+			assertEquals(DecodeLimitException.FRAME_COUNT, ex.getLimit());
+		}
+
+		RandomAccessGIFReader randomAccess = new RandomAccessGIFReader(GIFSource.wrap(GIF));
+		randomAccess.setDecodeLimits(limits);
+		randomAccess.getCompositeFrame(2);
+		try {
+			randomAccess.getCompositeFrame(3);
+			fail("RandomAccessGIFReader");
+		} catch(DecodeLimitException ex) {
+			assertEquals(DecodeLimitException.FRAME_COUNT, ex.getLimit());
+		}
+
+		ThumbnailGIFReader thumbnail = new ThumbnailGIFReader();
+		thumbnail.setDecodeLimits(limits);
+		try {
+			thumbnail.read(GIFSource.wrap(GIF));
+			fail("ThumbnailGIFReader");
+		} catch(DecodeLimitException ex) {
+			assertEquals(DecodeLimitException.FRAME_COUNT, ex.getLimit());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidLimit() {
+		new DecodeLimits().setMaxFrameCount(0);
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * DecodeMetricsTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DecodeMetricsTest {
+	// Keeps whatever it is told
+	private static class Recorder implements DecodeMetrics {
+		int headers;
+		List<FrameStats> frames = new ArrayList<FrameStats>();
+		long probedBytes = -1;
+		int probedFrames = -1;
+
+		public void headerRead(long nanos) {
+			assertTrue(nanos >= 0);
+			headers++;
+		}
+
+		public void frameRead(FrameStats stats) {
+			frames.add(stats);
+		}
+
+		public void probed(long nanos, long bytes, int frameCount) {
+			assertTrue(nanos >= 0);
+			probedBytes = bytes;
+			probedFrames = frameCount;
+		}
+	}
+
+	@Test
+	public void frameStats() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			String name = TestImages.NAMES.get(n);
+			byte[] gif = TestImages.IMAGES.get(n);
+			Recorder recorder = new Recorder();
+			AnimatedGIFReader reader = new AnimatedGIFReader();
+			reader.setDecodeMetrics(recorder);
+			reader.read(new ByteArrayInputStream(gif));
+			assertEquals(name, 1, recorder.headers);
+			List<GIFIndex.Entry> entries = GIFMetadata.probe(GIFSource.wrap(gif)).getFrames();
+			assertEquals(name, entries.size(), recorder.frames.size());
+			for(int i = 0; i < entries.size(); i++) {
+				GIFIndex.Entry entry = entries.get(i);
+				FrameStats stats = recorder.frames.get(i);
+				assertEquals(name, i, stats.getFrameIndex());
+				assertEquals(name + " frame " + i, entry.getWidth(), stats.getWidth());
+				assertEquals(name + " frame " + i, entry.getHeight(), stats.getHeight());
+				assertEquals(name + " frame " + i, entry.isInterlaced(), stats.isInterlaced());
+				assertEquals(name + " frame " + i, entry.getDisposalMethod(), stats.getDisposalMethod());
+				assertEquals(name + " frame " + i, (long)entry.getWidth()*entry.getHeight(), stats.getDecompressedBytes());
+				assertTrue(name + " frame " + i, stats.getCompressedBytes() > 0);
+				assertTrue(name + " frame " + i, stats.getCodeCount() > 0);
+				assertTrue(name + " frame " + i, stats.getDecodeNanos() >= 0 && stats.getCompositeNanos() >= 0);
+			}
+		}
+	}
+
+	@Test
+	public void probe() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			byte[] gif = TestImages.IMAGES.get(n);
+			Recorder recorder = new Recorder();
+			GIFMetadata metadata = GIFMetadata.probe(GIFSource.wrap(gif), recorder);
+			assertEquals(TestImages.NAMES.get(n), metadata.getFrameCount(), recorder.probedFrames);
+			assertEquals(TestImages.NAMES.get(n), gif.length, recorder.probedBytes);
+		}
+	}
+
+	@Test
+	public void jfr() throws Exception {
+		// Compiled in with JDK 11 or later
+		assumeFalse(System.getProperty("java.specification.version").startsWith("1."));
+		DecodeMetrics metrics = DecodeMetrics.jfr();
+		assertNotNull(metrics);
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.setDecodeMetrics(metrics);
+		reader.read(new ByteArrayInputStream(TestImages.IMAGES.get(1)));
+		GIFMetadata.probe(GIFSource.wrap(TestImages.IMAGES.get(1)), metrics);
+	}
+}
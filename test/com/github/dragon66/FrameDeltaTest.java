@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * FrameDeltaTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+public class FrameDeltaTest {
+	// Smallest rectangle containing the pixels which differ
+	private static Rectangle changed(int[] previous, int[] frame, int width, int height) {
+		Rectangle bounds = null;
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				if(previous[y*width + x] == frame[y*width + x]) continue;
+				if(bounds == null) bounds = new Rectangle(x, y, 1, 1);
+				else bounds.add(new Rectangle(x, y, 1, 1));
+			}
+		}
+		return bounds;
+	}
+
+	@Test
+	public void deltas() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			String name = TestImages.NAMES.get(n);
+			List<int[]> expected = TestImages.FRAMES.get(n);
+			FrameReader reader = new FrameReader();
+			GIFSource source = GIFSource.wrap(TestImages.IMAGES.get(n));
+			List<FrameDelta> deltas = new ArrayList<FrameDelta>();
+			FrameDelta delta = null;
+			while((delta = reader.getFrameDelta(source)) != null)
+				deltas.add(delta);
+			int width = reader.getLogicalScreenWidth();
+			int height = reader.getLogicalScreenHeight();
+			assertEquals(name, expected.size(), deltas.size());
+			int[] canvas = new int[width*height];
+			for(int i = 0; i < deltas.size(); i++) {
+				delta = deltas.get(i);
+				Rectangle bounds = new Rectangle(delta.getLeftPosition(), delta.getTopPosition(), delta.getWidth(), delta.getHeight());
+				if(i == 0)
+					assertEquals(name, new Rectangle(0, 0, width, height), bounds);
+				else {
+					// Not larger than needed
+					Rectangle changed = changed(expected.get(i - 1), expected.get(i), width, height);
+					assertEquals(name + " frame " + i, changed == null, delta.isEmpty());
+					if(changed != null) assertEquals(name + " frame " + i, changed, bounds);
+				}
+				if(delta.isEmpty())
+					assertNull(delta.getImage());
+				else
+					assertArrayEquals(name + " frame " + i, delta.getPixels(), TestImages.argb(delta.getImage()));
+				delta.applyTo(canvas, width);
+				assertArrayEquals(name + " frame " + i, expected.get(i), canvas);
+			}
+		}
+	}
+
+	@Test
+	public void delays() throws Exception {
+		FrameReader frameReader = new FrameReader();
+		GIFSource source = GIFSource.wrap(TestImages.IMAGES.get(0));
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.read(GIFSource.wrap(TestImages.IMAGES.get(0)));
+		for(GIFFrame frame : reader.getGIFFrames())
+			assertEquals(frame.getDelay(), frameReader.getFrameDelta(source).getDelay());
+		assertNull(frameReader.getFrameDelta(source));
+	}
+
+	@Test
+	public void sameFrame() throws Exception {
+		byte[] pixels = new byte[8*8];
+		for(int i = 0; i < pixels.length; i++)
+			pixels[i] = (byte)(i%4);
+		byte[] gif = new GIFBuilder(8, 8)
+				.frame(0, 0, 8, 8, GIFFrame.DISPOSAL_LEAVE_AS_IS, 10, pixels)
+				.frame(0, 0, 8, 8, GIFFrame.DISPOSAL_LEAVE_AS_IS, 10, pixels)
+				.toByteArray();
+		FrameReader reader = new FrameReader();
+		GIFSource source = GIFSource.wrap(gif);
+		assertFalse(reader.getFrameDelta(source).isEmpty());
+		assertTrue(reader.getFrameDelta(source).isEmpty());
+	}
+}
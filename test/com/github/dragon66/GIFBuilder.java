@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFBuilder.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Writes small GIFs frame by frame for the tests which need an exact layout: a 4 color
+ * global color table (black, red, green, blue) and frames given as color indices.
+ */
+final class GIFBuilder {
+	private ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	GIFBuilder(int width, int height) {
+		out.write("GIF89a".getBytes(), 0, 6);
+		GIFCorpus.writeShort(out, width);
+		GIFCorpus.writeShort(out, height);
+		out.write(0x81); // 4 color global color table
+		out.write(0); // Background color index
+		out.write(0); // Aspect ratio
+		byte[] palette = {0, 0, 0, (byte)255, 0, 0, 0, (byte)255, 0, 0, 0, (byte)255};
+		out.write(palette, 0, palette.length);
+	}
+
+	/**
+	 * Adds a NETSCAPE2.0 application extension, 0 to loop forever.
+	 */
+	GIFBuilder loopCount(int loopCount) {
+		out.write(0x21); out.write(0xff); out.write(11);
+		out.write("NETSCAPE2.0".getBytes(), 0, 11);
+		out.write(3); out.write(1);
+		GIFCorpus.writeShort(out, loopCount);
+		out.write(0);
+		return this;
+	}
+
+	/**
+	 * Adds a frame with a graphic control extension.
+	 *
+	 * @param delay in hundredths of a second
+	 * @param pixels w*h color indices (0-3)
+	 */
+	GIFBuilder frame(int x, int y, int w, int h, int disposalMethod, int delay, byte[] pixels) {
+		out.write(0x21); out.write(0xf9); out.write(4);
+		out.write(disposalMethod<<2);
+		GIFCorpus.writeShort(out, delay);
+		out.write(0); // Transparent color index, not used
+		out.write(0);
+		out.write(0x2c);
+		GIFCorpus.writeShort(out, x);
+		GIFCorpus.writeShort(out, y);
+		GIFCorpus.writeShort(out, w);
+		GIFCorpus.writeShort(out, h);
+		out.write(0); // No local color table, not interlaced
+		out.write(2); // LZW minimum code size
+		GIFCorpus.writeSubBlocks(out, GIFCorpus.lzwCompress(pixels, 2));
+		return this;
+	}
+
+	byte[] toByteArray() {
+		ByteArrayOutputStream gif = new ByteArrayOutputStream();
+		gif.write(out.toByteArray(), 0, out.size());
+		gif.write(0x3b); // Trailer
+		return gif.toByteArray();
+	}
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFCorpus.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates synthetic animated GIFs for the tests and the benchmarks.
+ * <p>
+ * The images are written by a minimal GIF89a encoder so that the layout of the file
+ * (global or local color tables, interlacing, disposal method, transparency) can be
+ * controlled exactly. The content mixes flat areas, gradients and noise to give the
+ * LZW decoder a realistic mix of short and long strings. The same parameters always
+ * produce the same bytes.
+ */
+public final class GIFCorpus {
+	private GIFCorpus() {}
+
+	/**
+	 * @param width logical screen width
+	 * @param height logical screen height
+	 * @param frameCount number of frames. The first frame covers the whole logical screen,
+	 *        the others cover random sub-rectangles of it
+	 * @param interlaced whether the frames are interlaced
+	 * @param globalPalette true to use one global color table, false to give each frame a local one
+	 * @param disposalMethod disposal method (0-3) used for all the frames
+	 * @return the GIF bytes
+	 */
+	public static byte[] generate(int width, int height, int frameCount, boolean interlaced, boolean globalPalette, int disposalMethod) {
+		Random random = new Random(31L*width + height);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		// Header and logical screen descriptor
+		writeBytes(out, "GIF89a".getBytes());
+		writeShort(out, width);
+		writeShort(out, height);
+		out.write(globalPalette? 0xf7 : 0x70); // 8 bits color resolution, 256 colors global color table if present
+		out.write(0); // Background color index
+		out.write(0); // Aspect ratio
+		if(globalPalette) writePalette(out, random);
+
+		// NETSCAPE2.0 application extension - loop forever
+		out.write(0x21); out.write(0xff); out.write(11);
+		writeBytes(out, "NETSCAPE2.0".getBytes());
+		out.write(3); out.write(1); writeShort(out, 0); out.write(0);
+
+		for(int i = 0; i < frameCount; i++) {
+			int w = (i == 0)? width : 1 + random.nextInt(width);
+			int h = (i == 0)? height : 1 + random.nextInt(height);
+			int x = (i == 0)? 0 : random.nextInt(width - w + 1);
+			int y = (i == 0)? 0 : random.nextInt(height - h + 1);
+			boolean transparent = (i%2 == 1);
+
+			// Graphic control extension
+			out.write(0x21); out.write(0xf9); out.write(4);
+			out.write((disposalMethod<<2)|(transparent? 1 : 0));
+			writeShort(out, 2);
+			out.write(0); // Transparent color index
+			out.write(0);
+
+			// Image descriptor
+			out.write(0x2c);
+			writeShort(out, x);
+			writeShort(out, y);
+			writeShort(out, w);
+			writeShort(out, h);
+			out.write((globalPalette? 0 : 0x87)|(interlaced? 0x40 : 0));
+			if(!globalPalette) writePalette(out, random);
+
+			byte[] pixels = createPixels(w, h, i, random);
+			if(interlaced) pixels = interlace(pixels, w, h);
+
+			out.write(8); // LZW minimum code size
+			writeSubBlocks(out, lzwCompress(pixels, 8));
+		}
+
+		out.write(0x3b); // Trailer
+
+		return out.toByteArray();
+	}
+
+	private static byte[] createPixels(int w, int h, int frame, Random random) {
+		byte[] pixels = new byte[w*h];
+		for(int y = 0, index = 0; y < h; y++) {
+			for(int x = 0; x < w; x++) {
+				int value;
+				if(((x>>4) + (y>>4) + frame)%5 == 0)
+					value = random.nextInt(256); // Noise
+				else if(((x>>5) + frame)%3 == 0)
+					value = (x*7 + y*3)&0xff; // Gradient
+				else
+					value = ((x>>3)*13 + (y>>3)*29 + frame)&0xff; // Flat tiles
+				pixels[index++] = (byte)value;
+			}
+		}
+		return pixels;
+	}
+
+	// Reorders the rows in the 4 pass interlaced order
+	private static byte[] interlace(byte[] pixels, int w, int h) {
+		byte[] result = new byte[pixels.length];
+		int[] start = {0, 4, 2, 1};
+		int[] step = {8, 8, 4, 2};
+		int index = 0;
+		for(int pass = 0; pass < 4; pass++) {
+			for(int row = start[pass]; row < h; row += step[pass]) {
+				System.arraycopy(pixels, row*w, result, index, w);
+				index += w;
+			}
+		}
+		return result;
+	}
+
+	static byte[] lzwCompress(byte[] pixels, int minCodeSize) {
+		return lzwCompress(pixels, minCodeSize, false);
+	}
+
+	/**
+	 * @param deferClear true to keep emitting 12 bit codes once the string table is full
+	 *        instead of a clear code, which decoders have to support as well
+	 */
+	static byte[] lzwCompress(byte[] pixels, int minCodeSize, boolean deferClear) {
+		return new LZWEncoder(minCodeSize, deferClear).compress(pixels);
+	}
+
+	private static void writeBytes(ByteArrayOutputStream out, byte[] b) {
+		out.write(b, 0, b.length);
+	}
+
+	private static void writePalette(ByteArrayOutputStream out, Random random) {
+		for(int i = 0; i < 256; i++) {
+			out.write(random.nextInt(256));
+			out.write(i);
+			out.write(255 - i);
+		}
+	}
+
+	static void writeShort(ByteArrayOutputStream out, int value) {
+		out.write(value&0xff);
+		out.write((value>>8)&0xff);
+	}
+
+	static void writeSubBlocks(ByteArrayOutputStream out, byte[] data) {
+		for(int off = 0; off < data.length; off += 255) {
+			int len = Math.min(255, data.length - off);
+			out.write(len);
+			out.write(data, off, len);
+		}
+		out.write(0); // Block terminator
+	}
+
+	// LZW compression following the classic GIFEncoder code size switching
+	private static final class LZWEncoder {
+		private static final int MAX_CODE = 4096;
+
+		private ByteArrayOutputStream out = new ByteArrayOutputStream();
+		private int[] table = new int[MAX_CODE<<8]; // (prefix<<8|suffix) -> code + 1
+		private boolean deferClear;
+		private int initBits;
+		private int clearCode;
+		private int endOfImage;
+		private int nBits;
+		private int maxCode;
+		private int freeEnt;
+		private boolean clearFlag;
+		private long accum;
+		private int bits;
+
+		LZWEncoder(int minCodeSize, boolean deferClear) {
+			this.deferClear = deferClear;
+			initBits = minCodeSize + 1;
+			clearCode = 1<<minCodeSize;
+			endOfImage = clearCode + 1;
+			nBits = initBits;
+			maxCode = (1<<nBits) - 1;
+			freeEnt = clearCode + 2;
+		}
+
+		byte[] compress(byte[] pixels) {
+			output(clearCode);
+
+			int ent = pixels[0]&0xff;
+
+			for(int i = 1; i < pixels.length; i++) {
+				int c = pixels[i]&0xff;
+				int key = (ent<<8)|c;
+				if(table[key] != 0) {
+					ent = table[key] - 1;
+					continue;
+				}
+				output(ent);
+				if(freeEnt < MAX_CODE) {
+					table[key] = freeEnt + 1;
+					freeEnt++;
+				} else if(!deferClear) { // Table full, start over
+					Arrays.fill(table, 0);
+					freeEnt = clearCode + 2;
+					clearFlag = true;
+					output(clearCode);
+				}
+				ent = c;
+			}
+
+			output(ent);
+			output(endOfImage);
+
+			while(bits > 0) { // Flush the remaining bits
+				out.write((int)(accum&0xff));
+				accum >>>= 8;
+				bits -= 8;
+			}
+
+			return out.toByteArray();
+		}
+
+		private void output(int code) {
+			accum |= ((long)code)<<bits;
+			bits += nBits;
+
+			while(bits >= 8) {
+				out.write((int)(accum&0xff));
+				accum >>>= 8;
+				bits -= 8;
+			}
+
+			if(freeEnt > maxCode || clearFlag) {
+				if(clearFlag) {
+					nBits = initBits;
+					maxCode = (1<<nBits) - 1;
+					clearFlag = false;
+				} else {
+					nBits++;
+					maxCode = (nBits == 12)? MAX_CODE : (1<<nBits) - 1;
+				}
+			}
+		}
+	}
+}
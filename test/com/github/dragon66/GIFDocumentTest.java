@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFDocumentTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class GIFDocumentTest {
+	@Test
+	public void concurrentReaders() throws Exception {
+		final int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+				final GIFDocument doc = GIFDocument.parse(TestImages.IMAGES.get(n));
+				final List<int[]> expected = TestImages.FRAMES.get(n);
+				final String name = TestImages.NAMES.get(n);
+				assertEquals(name, expected.size(), doc.getFrameCount());
+				List<Future<Void>> results = new ArrayList<Future<Void>>();
+				for(int t = 0; t < threads; t++) {
+					final int first = t;
+					results.add(executor.submit(new Callable<Void>() {
+						public Void call() throws Exception {
+							// Each thread starts at a different frame and wraps around
+							RandomAccessGIFReader reader = doc.newReader();
+							try {
+								for(int i = 0; i < expected.size(); i++) {
+									int frame = (first + i)%expected.size();
+									assertArrayEquals(name + " frame " + frame, expected.get(frame), TestImages.argb(reader.getCompositeFrame(frame)));
+								}
+							} finally {
+								reader.close();
+							}
+							return null;
+						}
+					}));
+				}
+				for(Future<Void> result : results)
+					result.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void newSource() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			GIFDocument doc = GIFDocument.parse(new ByteArrayInputStream(TestImages.IMAGES.get(n)));
+			// Sources are independent of each other
+			GIFSource first = doc.newSource();
+			first.skipFully(6);
+			AnimatedGIFReader reader = new AnimatedGIFReader();
+			reader.read(doc.newSource());
+			List<int[]> frames = new ArrayList<int[]>();
+			for(BufferedImage frame : reader.getFrames())
+				frames.add(TestImages.argb(frame));
+			TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), frames);
+		}
+	}
+
+	@Test
+	public void notAGIF() throws Exception {
+		assertNull(GIFDocument.parse("Not a GIF image at all".getBytes()));
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFFrameIteratorTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+public class GIFFrameIteratorTest {
+	@Test
+	public void compositeFrames() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			GIFFrameIterator iterator = new GIFFrameIterator(GIFSource.wrap(new ByteArrayInputStream(TestImages.IMAGES.get(n))));
+			List<int[]> frames = new ArrayList<int[]>();
+			while(iterator.hasNext())
+				frames.add(TestImages.argb(iterator.next().getFrame()));
+			iterator.close();
+			TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), frames);
+		}
+	}
+
+	@Test
+	public void rawFrames() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			FrameReader reader = new FrameReader();
+			GIFSource source = GIFSource.wrap(TestImages.IMAGES.get(n));
+			List<int[]> expected = new ArrayList<int[]>();
+			GIFFrame frame = null;
+			while((frame = reader.getGIFFrame(source)) != null)
+				expected.add(TestImages.argb(frame.getFrame()));
+			GIFFrameIterator iterator = new GIFFrameIterator(GIFSource.wrap(TestImages.IMAGES.get(n)), false);
+			List<int[]> frames = new ArrayList<int[]>();
+			while(iterator.hasNext())
+				frames.add(TestImages.argb(iterator.next().getFrame()));
+			iterator.close();
+			TestImages.assertFrames(TestImages.NAMES.get(n), expected, frames);
+		}
+	}
+
+	@Test
+	public void stream() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			List<GIFFrame> frames;
+			try(Stream<GIFFrame> stream = new GIFFrameIterator(GIFSource.wrap(TestImages.IMAGES.get(n))).stream()) {
+				frames = stream.collect(Collectors.toList());
+			}
+			List<int[]> expected = TestImages.FRAMES.get(n);
+			assertEquals(TestImages.NAMES.get(n), expected.size(), frames.size());
+			for(int i = 0; i < frames.size(); i++)
+				assertArrayEquals(TestImages.NAMES.get(n) + " frame " + i, expected.get(i), TestImages.argb(frames.get(i).getFrame()));
+		}
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void pastTheEnd() throws Exception {
+		GIFFrameIterator iterator = new GIFFrameIterator(GIFSource.wrap(TestImages.IMAGES.get(1)));
+		while(iterator.hasNext())
+			iterator.next();
+		iterator.next();
+	}
+
+	@Test
+	public void notAGIF() throws Exception {
+		assertFalse(new GIFFrameIterator(GIFSource.wrap("Not a GIF image at all".getBytes())).hasNext());
+	}
+}
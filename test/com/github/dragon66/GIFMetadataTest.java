@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFMetadataTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+public class GIFMetadataTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void corpus() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			byte[] gif = TestImages.IMAGES.get(n);
+			String name = TestImages.NAMES.get(n);
+			AnimatedGIFReader reader = new AnimatedGIFReader();
+			reader.read(new ByteArrayInputStream(gif));
+			int totalDelay = 0;
+			for(GIFFrame frame : reader.getGIFFrames())
+				totalDelay += frame.getDelay();
+			File file = folder.newFile();
+			Files.write(file.toPath(), gif);
+			// The same whatever the input
+			GIFMetadata[] probes = {GIFMetadata.probe(GIFSource.wrap(gif)), GIFMetadata.probe(new ByteArrayInputStream(gif)), GIFMetadata.probe(file)};
+			for(GIFMetadata metadata : probes) {
+				assertEquals(name, reader.getLogicalScreenWidth(), metadata.getLogicalScreenWidth());
+				assertEquals(name, reader.getLogicalScreenHeight(), metadata.getLogicalScreenHeight());
+				assertEquals(name, reader.getFrameCount(), metadata.getFrameCount());
+				assertEquals(name, totalDelay, metadata.getTotalDelay());
+				assertEquals(name, 10L*totalDelay, metadata.getDuration());
+				assertEquals(name, reader.getLoopCount(), metadata.getLoopCount());
+			}
+		}
+	}
+
+	@Test
+	public void frames() throws Exception {
+		byte[] gif = new GIFBuilder(16, 12)
+				.frame(0, 0, 16, 12, GIFFrame.DISPOSAL_LEAVE_AS_IS, 7, new byte[16*12])
+				.frame(3, 4, 2, 5, GIFFrame.DISPOSAL_RESTORE_TO_BACKGROUND, 25, new byte[2*5])
+				.toByteArray();
+		GIFMetadata metadata = GIFMetadata.probe(GIFSource.wrap(gif));
+		assertEquals(16, metadata.getLogicalScreenWidth());
+		assertEquals(12, metadata.getLogicalScreenHeight());
+		assertTrue(metadata.hasGlobalColorTable());
+		assertEquals(32, metadata.getTotalDelay());
+		assertEquals(320, metadata.getDuration());
+		List<GIFIndex.Entry> frames = metadata.getFrames();
+		assertEquals(2, frames.size());
+		GIFIndex.Entry entry = frames.get(1);
+		assertEquals(3, entry.getLeftPosition());
+		assertEquals(4, entry.getTopPosition());
+		assertEquals(2, entry.getWidth());
+		assertEquals(5, entry.getHeight());
+		assertEquals(25, entry.getDelay());
+		assertEquals(GIFFrame.DISPOSAL_RESTORE_TO_BACKGROUND, entry.getDisposalMethod());
+	}
+
+	@Test
+	public void loopCount() throws Exception {
+		byte[] frame = new byte[4*4];
+		byte[] once = new GIFBuilder(4, 4).frame(0, 0, 4, 4, GIFFrame.DISPOSAL_LEAVE_AS_IS, 10, frame).toByteArray();
+		byte[] forever = new GIFBuilder(4, 4).loopCount(0).frame(0, 0, 4, 4, GIFFrame.DISPOSAL_LEAVE_AS_IS, 10, frame).toByteArray();
+		byte[] three = new GIFBuilder(4, 4).loopCount(3).frame(0, 0, 4, 4, GIFFrame.DISPOSAL_LEAVE_AS_IS, 10, frame).toByteArray();
+		assertEquals(GIFMetadata.LOOP_COUNT_NONE, GIFMetadata.probe(GIFSource.wrap(once)).getLoopCount());
+		assertEquals(GIFMetadata.LOOP_COUNT_FOREVER, GIFMetadata.probe(GIFSource.wrap(forever)).getLoopCount());
+		assertEquals(3, GIFMetadata.probe(GIFSource.wrap(three)).getLoopCount());
+		// The same as read by AnimatedGIFReader
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.read(new ByteArrayInputStream(once));
+		assertEquals(GIFMetadata.LOOP_COUNT_NONE, reader.getLoopCount());
+		reader.read(new ByteArrayInputStream(three));
+		assertEquals(3, reader.getLoopCount());
+	}
+
+	@Test
+	public void notAGIF() throws Exception {
+		assertNull(GIFMetadata.probe(GIFSource.wrap("Not a GIF image at all".getBytes())));
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFPushParserTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+public class GIFPushParserTest {
+	private static final int[] CHUNK_SIZES = {1, 7, 4096};
+
+	private static List<byte[]> images() throws Exception {
+		return Arrays.asList(Files.readAllBytes(Paths.get("images", "comederos.gif")),
+				GIFCorpus.generate(120, 90, 6, false, false, 1),
+				GIFCorpus.generate(83, 101, 6, true, true, 3));
+	}
+
+	// Feeds the image chunk by chunk, each chunk in a buffer of its own
+	private static List<GIFFrame> parse(byte[] gif, int chunkSize, boolean composite) throws Exception {
+		final List<GIFFrame> frames = new ArrayList<GIFFrame>();
+		GIFPushParser parser = new GIFPushParser(new GIFPushParser.Listener() {
+			public void onFrame(GIFFrame frame) {
+				frames.add(frame);
+			}
+		}, composite);
+		for(int off = 0; off < gif.length; off += chunkSize)
+			parser.feed(ByteBuffer.wrap(Arrays.copyOfRange(gif, off, Math.min(gif.length, off + chunkSize))));
+		assertTrue(parser.isDone());
+		parser.end();
+		return frames;
+	}
+
+	@Test
+	public void compositedFrames() throws Exception {
+		for(byte[] gif : images()) {
+			AnimatedGIFReader reader = new AnimatedGIFReader();
+			reader.read(new ByteArrayInputStream(gif));
+			for(int chunkSize : CHUNK_SIZES) {
+				List<GIFFrame> frames = parse(gif, chunkSize, true);
+				assertEquals(reader.getFrameCount(), frames.size());
+				for(int i = 0; i < frames.size(); i++) {
+					GIFFrame expected = reader.getGIFFrame(i);
+					GIFFrame actual = frames.get(i);
+					assertArrayEquals("Chunk size " + chunkSize + " frame " + i,
+							TestImages.argb(expected.getFrame()), TestImages.argb(actual.getFrame()));
+					assertEquals(expected.getDelay(), actual.getDelay());
+					assertEquals(expected.getDisposalMethod(), actual.getDisposalMethod());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void wholeInput() throws Exception {
+		// All the bytes in one buffer
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			final List<int[]> frames = new ArrayList<int[]>();
+			GIFPushParser parser = new GIFPushParser(new GIFPushParser.Listener() {
+				public void onFrame(GIFFrame frame) {
+					frames.add(TestImages.argb(frame.getFrame()));
+				}
+			});
+			parser.feed(ByteBuffer.wrap(TestImages.IMAGES.get(n)));
+			parser.end();
+			TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), frames);
+		}
+	}
+
+	@Test
+	public void frames() throws Exception {
+		for(byte[] gif : images()) {
+			List<GIFFrame> expected = new ArrayList<GIFFrame>();
+			FrameReader reader = new FrameReader();
+			GIFSource source = GIFSource.wrap(gif);
+			GIFFrame frame = null;
+			while((frame = reader.getGIFFrame(source)) != null)
+				expected.add(frame);
+			for(int chunkSize : CHUNK_SIZES) {
+				List<GIFFrame> frames = parse(gif, chunkSize, false);
+				assertEquals(expected.size(), frames.size());
+				for(int i = 0; i < frames.size(); i++) {
+					assertEquals(expected.get(i).getLeftPosition(), frames.get(i).getLeftPosition());
+					assertEquals(expected.get(i).getTopPosition(), frames.get(i).getTopPosition());
+					assertArrayEquals("Chunk size " + chunkSize + " frame " + i,
+							TestImages.argb(expected.get(i).getFrame()), TestImages.argb(frames.get(i).getFrame()));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void otherApplicationExtension() throws Exception {
+		// An XMP like application extension in front of the frames is skipped as it streams
+		byte[] gif = GIFCorpus.generate(120, 90, 3, false, true, 0);
+		GIFSource is = GIFSource.wrap(gif);
+		GIFIndex.readHeader(is);
+		int offset = (int)is.position();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(gif, 0, offset);
+		out.write(new byte[] {0x21, (byte)0xff, 11});
+		out.write("XMP DataXMP".getBytes("US-ASCII"));
+		for(int i = 0; i < 100; i++) {
+			out.write(255);
+			out.write(new byte[255]);
+		}
+		out.write(0);
+		out.write(gif, offset, gif.length - offset);
+		byte[] withExtension = out.toByteArray();
+		for(int chunkSize : CHUNK_SIZES) {
+			List<GIFFrame> expected = parse(gif, chunkSize, true);
+			List<GIFFrame> frames = parse(withExtension, chunkSize, true);
+			assertEquals(expected.size(), frames.size());
+			for(int i = 0; i < frames.size(); i++)
+				assertArrayEquals("Chunk size " + chunkSize + " frame " + i,
+						TestImages.argb(expected.get(i).getFrame()), TestImages.argb(frames.get(i).getFrame()));
+		}
+	}
+
+	@Test
+	public void loopCount() throws Exception {
+		final GIFPushParser parser = new GIFPushParser(new GIFPushParser.Listener() {
+			public void onFrame(GIFFrame frame) {}
+		});
+		parser.feed(ByteBuffer.wrap(GIFCorpus.generate(40, 30, 2, false, true, 0)));
+		assertEquals(0, parser.getLoopCount()); // Loops forever
+		assertEquals(2, parser.getFrameCount());
+	}
+
+	@Test
+	public void truncatedInput() throws Exception {
+		// The frame cut short is handed over by end()
+		byte[] gif = GIFCorpus.generate(120, 90, 3, false, true, 0);
+		final List<GIFFrame> frames = new ArrayList<GIFFrame>();
+		GIFPushParser parser = new GIFPushParser(new GIFPushParser.Listener() {
+			public void onFrame(GIFFrame frame) {
+				frames.add(frame);
+			}
+		});
+		parser.feed(ByteBuffer.wrap(gif, 0, gif.length - 40));
+		int complete = frames.size();
+		parser.end();
+		assertEquals(complete + 1, frames.size());
+		assertTrue(parser.isDone());
+	}
+
+	@Test(expected = IOException.class)
+	public void notAGIF() throws Exception {
+		GIFPushParser parser = new GIFPushParser(new GIFPushParser.Listener() {
+			public void onFrame(GIFFrame frame) {}
+		});
+		parser.feed(ByteBuffer.wrap("Not a GIF image at all".getBytes()));
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * GIFSourceTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GIFSourceTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static List<int[]> read(GIFSource source) throws Exception {
+		AnimatedGIFReader reader = new AnimatedGIFReader();
+		reader.read(source);
+		List<int[]> frames = new ArrayList<int[]>();
+		for(BufferedImage frame : reader.getFrames())
+			frames.add(TestImages.argb(frame));
+		return frames;
+	}
+
+	@Test
+	public void byteBufferSource() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++)
+			TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n),
+					read(GIFSource.wrap(ByteBuffer.wrap(TestImages.IMAGES.get(n)))));
+	}
+
+	@Test
+	public void streamSource() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++)
+			TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n),
+					read(GIFSource.wrap(new ByteArrayInputStream(TestImages.IMAGES.get(n)))));
+	}
+
+	@Test
+	public void mappedSource() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			File file = folder.newFile();
+			Files.write(file.toPath(), TestImages.IMAGES.get(n));
+			GIFSource source = GIFSource.map(file);
+			try {
+				TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), read(source));
+			} finally {
+				source.close();
+			}
+		}
+	}
+
+	@Test
+	public void seekAndSlice() throws Exception {
+		byte[] data = new byte[256];
+		for(int i = 0; i < data.length; i++)
+			data[i] = (byte)i;
+		GIFSource source = GIFSource.wrap(data);
+		assertTrue(source.isSeekable());
+		source.seek(100);
+		assertEquals(100, source.read());
+		ByteBuffer slice = source.slice(10);
+		assertEquals(10, slice.remaining());
+		assertEquals(101, slice.get() & 0xff);
+		assertEquals(111, source.position());
+		// A duplicate has its own position
+		GIFSource copy = source.duplicate();
+		copy.seek(0);
+		assertEquals(0, copy.read());
+		assertEquals(111, source.read());
+	}
+
+	@Test
+	public void streamSourceSlice() throws Exception {
+		byte[] data = new byte[256];
+		for(int i = 0; i < data.length; i++)
+			data[i] = (byte)i;
+		GIFSource source = GIFSource.wrap(new ByteArrayInputStream(data));
+		assertFalse(source.isSeekable());
+		source.skipFully(20);
+		assertEquals(20, source.position());
+		ByteBuffer slice = source.slice(5);
+		assertEquals(5, slice.remaining());
+		assertEquals(20, slice.get() & 0xff);
+		assertEquals(25, source.read());
+	}
+}
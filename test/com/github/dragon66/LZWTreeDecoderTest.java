@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * LZWTreeDecoderTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LZWTreeDecoderTest {
+	// Noise fills the string table many times over
+	private static byte[] pixels(int size, int colors) {
+		Random random = new Random(size);
+		byte[] pixels = new byte[size];
+		for(int i = 0; i < size; i++)
+			pixels[i] = (byte)((i%97 < 40)? random.nextInt(colors) : (i/13)%colors);
+		return pixels;
+	}
+
+	// Frames the LZW data into sub-blocks followed by the block terminator
+	private static byte[] subBlocks(byte[] data) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for(int off = 0; off < data.length; off += 255) {
+			int len = Math.min(255, data.length - off);
+			out.write(len);
+			out.write(data, off, len);
+		}
+		out.write(0);
+		return out.toByteArray();
+	}
+
+	private static byte[] decode(byte[] data, int minCodeSize, int size) throws Exception {
+		LZWTreeDecoder decoder = new LZWTreeDecoder(GIFSource.wrap(subBlocks(data)), minCodeSize);
+		byte[] pix = new byte[size];
+		assertEquals(size, decoder.decode(pix, 0, size));
+		return pix;
+	}
+
+	@Test
+	public void roundTrip() throws Exception {
+		for(int minCodeSize = 2; minCodeSize <= 8; minCodeSize++) {
+			byte[] pixels = pixels(100000, 1<<minCodeSize);
+			assertArrayEquals("Code size " + minCodeSize, pixels, decode(GIFCorpus.lzwCompress(pixels, minCodeSize), minCodeSize, pixels.length));
+		}
+	}
+
+	@Test
+	public void deferredClearCode() throws Exception {
+		// Once the table is full the encoder goes on with 12 bit codes instead of clearing it
+		byte[] pixels = pixels(200000, 256);
+		byte[] data = GIFCorpus.lzwCompress(pixels, 8, true);
+		LZWTreeDecoder decoder = new LZWTreeDecoder(GIFSource.wrap(subBlocks(data)), 8);
+		byte[] pix = new byte[pixels.length];
+		assertEquals(pixels.length, decoder.decode(pix, 0, pix.length));
+		assertArrayEquals(pixels, pix);
+		assertEquals(1, decoder.getTableFullCount());
+		assertEquals(1, decoder.getClearCodeCount()); // The leading one only
+	}
+
+	@Test
+	public void smallOutputBuffer() throws Exception {
+		// Code strings longer than the room left are finished by the following calls
+		byte[] pixels = new byte[50000]; // Long runs of the same color
+		byte[] data = GIFCorpus.lzwCompress(pixels, 2);
+		LZWTreeDecoder decoder = new LZWTreeDecoder(GIFSource.wrap(subBlocks(data)), 2);
+		byte[] pix = new byte[pixels.length];
+		Arrays.fill(pix, (byte)1);
+		int offset = 0;
+		while(offset < pix.length)
+			offset += decoder.decode(pix, offset, Math.min(7, pix.length - offset));
+		assertArrayEquals(pixels, pix);
+	}
+
+	@Test
+	public void truncatedData() throws Exception {
+		byte[] pixels = pixels(30000, 256);
+		byte[] data = GIFCorpus.lzwCompress(pixels, 8);
+		byte[] truncated = Arrays.copyOf(data, data.length/2);
+		LZWTreeDecoder decoder = new LZWTreeDecoder(GIFSource.wrap(subBlocks(truncated)), 8);
+		byte[] pix = new byte[pixels.length];
+		int count = decoder.decode(pix, 0, pix.length);
+		assertTrue(count > 0 && count < pixels.length);
+		assertArrayEquals(Arrays.copyOf(pixels, count), Arrays.copyOf(pix, count));
+		assertEquals(0, decoder.decode(pix, count, pix.length - count)); // Nothing more
+	}
+
+	@Test
+	public void truncatedFrame() throws Exception {
+		// The missing pixels of a frame cut short are color index 0
+		byte[] pixels = pixels(30000, 256);
+		byte[] data = GIFCorpus.lzwCompress(pixels, 8);
+		byte[] imageData = subBlocks(Arrays.copyOf(data, data.length/3));
+		ByteBuffer buf = ByteBuffer.allocate(imageData.length + 1);
+		buf.put((byte)8).put(imageData).flip(); // LZW minimum code size first
+		GIFSource is = GIFSource.wrap(buf);
+		byte[] pix = new byte[pixels.length];
+		Arrays.fill(pix, (byte)1);
+		AnimatedGIFReader.decodeLZW(is, 300, 100, false, pix, 0);
+		int zeros = 0;
+		while(zeros < pix.length && pix[pix.length - 1 - zeros] == 0) zeros++;
+		assertTrue(zeros > pixels.length/2);
+	}
+
+	@Test
+	public void pushModeResume() throws Exception {
+		// Fed in chunks of every size the same as decoded in one go
+		byte[] pixels = pixels(60000, 256);
+		byte[] data = GIFCorpus.lzwCompress(pixels, 8, true);
+		for(int chunk : new int[] {1, 2, 3, 7, 255, 4096}) {
+			LZWTreeDecoder decoder = new LZWTreeDecoder(8);
+			byte[] pix = new byte[pixels.length];
+			int decoded = 0;
+			for(int off = 0; off < data.length; off += chunk) {
+				ByteBuffer buf = ByteBuffer.wrap(data, off, Math.min(chunk, data.length - off));
+				decoded += decoder.decode(buf, pix, decoded, pix.length - decoded);
+				if(decoded < pix.length) // Everything consumed until the end
+					assertEquals("Chunk size " + chunk, 0, buf.remaining());
+			}
+			assertEquals("Chunk size " + chunk, pixels.length, decoded);
+			assertArrayEquals("Chunk size " + chunk, pixels, pix);
+		}
+	}
+
+	@Test
+	public void reset() throws Exception {
+		// A reset decoder is the same as a new one
+		byte[] first = pixels(20000, 16);
+		byte[] second = pixels(30000, 256);
+		LZWTreeDecoder decoder = new LZWTreeDecoder(GIFSource.wrap(subBlocks(GIFCorpus.lzwCompress(first, 4))), 4);
+		byte[] pix = new byte[first.length];
+		decoder.decode(pix, 0, pix.length);
+		assertArrayEquals(first, pix);
+		decoder.reset(GIFSource.wrap(subBlocks(GIFCorpus.lzwCompress(second, 8))), 8);
+		pix = new byte[second.length];
+		assertEquals(second.length, decoder.decode(pix, 0, pix.length));
+		assertArrayEquals(second, pix);
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * PaletteTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class PaletteTest {
+	// Colors no other test uses
+	private static int[] colors(int seed) {
+		int[] colors = new int[16];
+		for(int i = 0; i < colors.length; i++)
+			colors[i] = (seed*7919 + i*104729)&0xffffff;
+		colors[0] = 0x123456;
+		colors[1] = seed;
+		return colors;
+	}
+
+	@Test
+	public void interned() {
+		int[] colors = colors(1);
+		Palette palette = Palette.of(colors);
+		// The alpha channel doesn't matter and the array is copied
+		int[] translucent = colors.clone();
+		for(int i = 0; i < translucent.length; i++)
+			translucent[i] |= 0x7f000000;
+		assertSame(palette, Palette.of(translucent));
+		colors[2] ^= 1;
+		assertNotSame(palette, Palette.of(colors));
+		assertEquals(0xff000000|translucent[2], palette.getRGB(2));
+		assertEquals(16, palette.size());
+	}
+
+	@Test
+	public void sharedTables() {
+		Palette palette = Palette.of(colors(2));
+		int[] lut = palette.getLookupTable(3);
+		assertSame(lut, Palette.of(colors(2)).getLookupTable(3));
+		assertEquals(0, lut[3]);
+		assertEquals(palette.getRGB(4), lut[4]);
+		// Outside of the palette
+		assertEquals(0, lut[16]);
+		assertSame(palette.getColorModel(4, 3), Palette.of(colors(2)).getColorModel(4, 3));
+		assertNotSame(palette.getColorModel(4, 3), palette.getColorModel(4, -1));
+		assertArrayEquals(palette.colors(), Palette.of(colors(2)).colors());
+	}
+
+	@Test
+	public void bounded() {
+		Palette cold = Palette.of(colors(3));
+		Palette hot = Palette.of(colors(4));
+		for(int i = 0; i < 4096; i++) {
+			Palette.of(colors(1000 + i));
+			// Looked up all along
+			assertSame(hot, Palette.of(colors(4)));
+		}
+		// Evicted long ago
+		assertNotSame(cold, Palette.of(colors(3)));
+	}
+
+	@Test
+	public void concurrent() throws Exception {
+		final int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Palette[]>> results = new ArrayList<Future<Palette[]>>();
+			for(int t = 0; t < threads; t++) {
+				final int first = t;
+				results.add(executor.submit(new Callable<Palette[]>() {
+					public Palette[] call() {
+						Palette[] palettes = new Palette[64];
+						for(int round = 0; round < 100; round++)
+							for(int i = 0; i < palettes.length; i++) {
+								int n = (first + i)%palettes.length;
+								Palette palette = Palette.of(colors(10000 + n));
+								if(palettes[n] == null) palettes[n] = palette;
+								assertSame(palettes[n], palette);
+							}
+						return palettes;
+					}
+				}));
+			}
+			// One instance per set of colors whatever the thread
+			Palette[] expected = results.get(0).get();
+			for(Future<Palette[]> result : results)
+				assertArrayEquals(expected, result.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * ParallelGIFReaderTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+public class ParallelGIFReaderTest {
+	private static List<int[]> frames(ParallelGIFReader reader) {
+		List<int[]> frames = new ArrayList<int[]>();
+		for(GIFFrame frame : reader.getGIFFrames())
+			frames.add(TestImages.argb(frame.getFrame()));
+		return frames;
+	}
+
+	@Test
+	public void givenExecutor() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+				ParallelGIFReader reader = new ParallelGIFReader(executor);
+				reader.setLookAhead(2);
+				reader.read(GIFSource.wrap(TestImages.IMAGES.get(n)));
+				TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), frames(reader));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void defaultExecutor() throws Exception {
+		// One reader for all the images, read from streams
+		ParallelGIFReader reader = new ParallelGIFReader();
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			reader.read(new ByteArrayInputStream(TestImages.IMAGES.get(n)));
+			TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), frames(reader));
+		}
+	}
+
+	@Test
+	public void notAGIF() throws Exception {
+		ParallelGIFReader reader = new ParallelGIFReader();
+		assertNull(reader.getFrame(0));
+		reader.read(GIFSource.wrap(TestImages.IMAGES.get(1)));
+		// Nothing left over from the previous image
+		assertNull(reader.read(GIFSource.wrap("Not a GIF image at all".getBytes())));
+		assertEquals(0, reader.getFrameCount());
+		assertEquals(0, reader.getGIFFrames().size());
+		assertEquals(0, reader.getLogicalScreenWidth());
+		assertEquals(0, reader.getLogicalScreenHeight());
+		assertNull(reader.getFrame(0));
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * PipelinedGIFReaderTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+public class PipelinedGIFReaderTest {
+	private static List<int[]> take(FrameRing ring) throws Exception {
+		List<int[]> frames = new ArrayList<int[]>();
+		FrameRing.Slot slot = null;
+		while((slot = ring.take()) != null) {
+			assertEquals(frames.size(), slot.getFrameIndex());
+			frames.add(TestImages.argb(slot.getImage()));
+			ring.release(slot);
+		}
+		return frames;
+	}
+
+	@Test
+	public void frames() throws Exception {
+		FrameRing ring = new FrameRing(2);
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			byte[] gif = TestImages.IMAGES.get(n);
+			// Seekable and non seekable sources
+			for(GIFSource source : new GIFSource[] {GIFSource.wrap(gif), GIFSource.wrap(new ByteArrayInputStream(gif))}) {
+				PipelinedGIFReader reader = new PipelinedGIFReader();
+				reader.setQueueCapacity(1);
+				assertTrue(reader.start(source, ring));
+				TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), take(ring));
+			}
+		}
+	}
+
+	@Test
+	public void canvasLimits() throws Exception {
+		byte[] gif = TestImages.IMAGES.get(1);
+		GIFMetadata metadata = GIFMetadata.probe(GIFSource.wrap(gif));
+		long canvas = 4L*metadata.getLogicalScreenWidth()*metadata.getLogicalScreenHeight();
+		FrameRing ring = new FrameRing(3);
+		// The canvases of the compositor and of the ring are checked before anything is started
+		DecodeLimits limits = new DecodeLimits();
+		limits.setMaxDecodedBytes(4*canvas - 1);
+		PipelinedGIFReader reader = new PipelinedGIFReader();
+		reader.setDecodeLimits(limits);
+		try {
+			reader.start(GIFSource.wrap(gif), ring);
+			fail("Canvases not accounted for");
+		} catch(DecodeLimitException ex) {
+			assertEquals(DecodeLimitException.DECODED_BYTES, ex.getLimit());
+		}
+		limits.setMaxDecodedBytes(DecodeLimits.UNLIMITED);
+		assertTrue(reader.start(GIFSource.wrap(gif), ring));
+		TestImages.assertFrames(TestImages.NAMES.get(1), TestImages.FRAMES.get(1), take(ring));
+	}
+
+	@Test
+	public void defaultExecutorBound() throws Exception {
+		// More frames than the stages, queues and ring can hold, so the readings wait for the consumer
+		byte[] gif = GIFCorpus.generate(40, 30, 12, false, true, 1);
+		List<PipelinedGIFReader> readers = new ArrayList<PipelinedGIFReader>();
+		List<FrameRing> rings = new ArrayList<FrameRing>();
+		try {
+			for(int i = 0; i < PipelinedGIFReader.MAX_DEFAULT_READINGS; i++) {
+				PipelinedGIFReader reader = new PipelinedGIFReader();
+				reader.setQueueCapacity(1);
+				FrameRing ring = new FrameRing(1);
+				reader.start(GIFSource.wrap(gif), ring);
+				readers.add(reader);
+				rings.add(ring);
+			}
+			FrameRing ring = new FrameRing(1);
+			try {
+				new PipelinedGIFReader().start(GIFSource.wrap(gif), ring);
+				fail("Too many readings");
+			} catch(RejectedExecutionException ex) {
+				// The ring fails the same way
+				try {
+					ring.take();
+					fail("Ring not failed");
+				} catch(RejectedExecutionException failure) {}
+			}
+			// The readings already started are not disturbed
+			List<int[]> expected = TestImages.composite(gif);
+			TestImages.assertFrames("first reading", expected, take(rings.get(0)));
+		} finally {
+			for(PipelinedGIFReader reader : readers)
+				reader.cancel();
+		}
+		for(int i = 1; i < rings.size(); i++) {
+			try {
+				take(rings.get(i));
+				fail("Reading not cancelled");
+			} catch(CancellationException ex) {}
+		}
+		// The threads are back in the pool
+		byte[] other = TestImages.IMAGES.get(1);
+		for(int i = 0; i < 3; i++) {
+			FrameRing ring = new FrameRing(2);
+			assertTrue(startWhenFree(other, ring));
+			TestImages.assertFrames(TestImages.NAMES.get(1), TestImages.FRAMES.get(1), take(ring));
+		}
+	}
+
+	// The threads of cancelled readings take a little while to get back to the pool
+	private static boolean startWhenFree(byte[] gif, FrameRing ring) throws Exception {
+		for(int attempt = 0; ; attempt++) {
+			try {
+				return new PipelinedGIFReader().start(GIFSource.wrap(gif), ring);
+			} catch(RejectedExecutionException ex) {
+				if(attempt == 100) throw ex;
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	@Test
+	public void notAGIF() throws Exception {
+		assertFalse(new PipelinedGIFReader().start(GIFSource.wrap("Not a GIF image at all".getBytes()), new FrameRing(1)));
+	}
+}
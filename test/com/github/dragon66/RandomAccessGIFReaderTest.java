@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * RandomAccessGIFReaderTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+public class RandomAccessGIFReaderTest {
+	@Test
+	public void frames() throws Exception {
+		// Any frame in any order, the same as read one after the other
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			byte[] gif = TestImages.IMAGES.get(n);
+			List<GIFFrame> expected = new ArrayList<GIFFrame>();
+			FrameReader frameReader = new FrameReader();
+			GIFSource source = GIFSource.wrap(gif);
+			GIFFrame frame = null;
+			while((frame = frameReader.getGIFFrame(source)) != null)
+				expected.add(frame);
+			RandomAccessGIFReader reader = new RandomAccessGIFReader(GIFSource.wrap(gif));
+			String name = TestImages.NAMES.get(n);
+			assertEquals(name, expected.size(), reader.getFrameCount());
+			for(int i = expected.size() - 1; i >= 0; i -= 2) {
+				GIFFrame actual = reader.getGIFFrame(i);
+				assertEquals(name + " frame " + i, expected.get(i).getLeftPosition(), actual.getLeftPosition());
+				assertEquals(name + " frame " + i, expected.get(i).getTopPosition(), actual.getTopPosition());
+				assertEquals(name + " frame " + i, expected.get(i).getDelay(), actual.getDelay());
+				assertArrayEquals(name + " frame " + i, TestImages.argb(expected.get(i).getFrame()), TestImages.argb(reader.getFrame(i)));
+			}
+			reader.close();
+		}
+	}
+
+	@Test
+	public void compositeFrames() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			List<int[]> expected = TestImages.FRAMES.get(n);
+			String name = TestImages.NAMES.get(n);
+			RandomAccessGIFReader reader = new RandomAccessGIFReader(GIFSource.wrap(TestImages.IMAGES.get(n)));
+			reader.setCheckpointInterval(3);
+			// Backwards so that each frame is built from a checkpoint or a keyframe
+			for(int i = expected.size() - 1; i >= 0; i--)
+				assertArrayEquals(name + " frame " + i, expected.get(i), TestImages.argb(reader.getCompositeFrame(i)));
+			for(int i = 0; i < expected.size(); i++)
+				assertArrayEquals(name + " frame " + i, expected.get(i), TestImages.argb(reader.getCompositeFrame(i)));
+			reader.close();
+		}
+	}
+
+	@Test
+	public void compositeFramesWithoutCheckpoints() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			List<int[]> expected = TestImages.FRAMES.get(n);
+			RandomAccessGIFReader reader = new RandomAccessGIFReader(GIFSource.wrap(TestImages.IMAGES.get(n)));
+			reader.setCheckpointBudget(0);
+			// Every other frame so that some are replayed from the start or a keyframe
+			for(int i = expected.size() - 1; i >= 0; i -= 2)
+				assertArrayEquals(TestImages.NAMES.get(n) + " frame " + i, expected.get(i), TestImages.argb(reader.getCompositeFrame(i)));
+			reader.close();
+		}
+	}
+
+	@Test
+	public void indexedPixels() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			String name = TestImages.NAMES.get(n);
+			RandomAccessGIFReader reader = new RandomAccessGIFReader(GIFSource.wrap(TestImages.IMAGES.get(n)));
+			for(int i = 0; i < reader.getFrameCount(); i++) {
+				GIFIndex.Entry entry = reader.getIndex().getEntry(i);
+				int size = entry.getWidth()*entry.getHeight();
+				byte[] pixels = new byte[size + 3];
+				assertEquals(name, size, reader.readPixels(i, pixels, 3));
+				ByteBuffer heap = ByteBuffer.allocate(size + 1);
+				heap.put((byte)0);
+				assertEquals(name, size, reader.readPixels(i, heap));
+				assertEquals(name, size + 1, heap.position());
+				ByteBuffer direct = ByteBuffer.allocateDirect(size);
+				assertEquals(name, size, reader.readPixels(i, direct));
+				// The color indices and palette of the indexed image of the frame
+				BufferedImage frame = reader.getFrame(i);
+				IndexColorModel colorModel = (IndexColorModel)frame.getColorModel();
+				int[] palette = reader.getColorPalette(i);
+				for(int y = 0, index = 0; y < entry.getHeight(); y++) {
+					for(int x = 0; x < entry.getWidth(); x++, index++) {
+						int pixel = pixels[3 + index]&0xff;
+						assertEquals(name + " frame " + i + " at " + x + "," + y, frame.getRaster().getSample(x, y, 0), pixel);
+						assertEquals(name + " frame " + i + " at " + x + "," + y, pixel, heap.get(1 + index)&0xff);
+						assertEquals(name + " frame " + i + " at " + x + "," + y, pixel, direct.get(index)&0xff);
+						assertEquals(name + " frame " + i + " color " + pixel, colorModel.getRGB(pixel)|0xff000000, palette[pixel]);
+					}
+				}
+			}
+			reader.close();
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void readPixelsNoRoom() throws Exception {
+		RandomAccessGIFReader reader = new RandomAccessGIFReader(GIFSource.wrap(TestImages.IMAGES.get(1)));
+		GIFIndex.Entry entry = reader.getIndex().getEntry(0);
+		reader.readPixels(0, new byte[entry.getWidth()*entry.getHeight()], 1);
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void readPixelsBufferOverflow() throws Exception {
+		RandomAccessGIFReader reader = new RandomAccessGIFReader(GIFSource.wrap(TestImages.IMAGES.get(1)));
+		GIFIndex.Entry entry = reader.getIndex().getEntry(0);
+		reader.readPixels(0, ByteBuffer.allocateDirect(entry.getWidth()*entry.getHeight() - 1));
+	}
+
+	@Test(expected = IOException.class)
+	public void notAGIF() throws Exception {
+		new RandomAccessGIFReader(GIFSource.wrap("Not a GIF image at all".getBytes()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void notSeekable() throws Exception {
+		new RandomAccessGIFReader(GIFSource.wrap(new ByteArrayInputStream(TestImages.IMAGES.get(0))));
+	}
+}
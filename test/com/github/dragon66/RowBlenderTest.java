@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * RowBlenderTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RowBlenderTest {
+	@Test
+	public void scalar() {
+		int[] lut = new int[256];
+		lut[1] = 0xff112233;
+		lut[2] = 0xff445566;
+		int[] canvas = {7, 7, 7, 7, 7};
+		// Index 0 and index 3 map to 0 and leave the canvas alone
+		new RowBlender().blend(lut, new byte[] {9, 1, 0, 2, 3}, 1, canvas, 1, 4);
+		assertArrayEquals(new int[] {7, 0xff112233, 7, 0xff445566, 7}, canvas);
+	}
+
+	@Test
+	public void vectorMatchesScalar() {
+		assumeTrue("Vector API not available", RowBlender.isVectorized());
+		RowBlender vector = RowBlender.create();
+		RowBlender scalar = new RowBlender();
+		Random random = new Random(42);
+		int[] lut = new int[256];
+		byte[] indices = new byte[4096];
+		random.nextBytes(indices);
+
+		for(int transparent : new int[] {0, 50, 100}) {
+			for(int i = 0; i < lut.length; i++)
+				lut[i] = (random.nextInt(100) < transparent)? 0 : random.nextInt()|1;
+			// Lengths around multiples of the vector sizes and unaligned offsets
+			for(int length = 0; length < 200; length++) {
+				int src = random.nextInt(64);
+				int dst = random.nextInt(64);
+				int[] expected = new int[length + 128];
+				for(int i = 0; i < expected.length; i++)
+					expected[i] = random.nextInt();
+				int[] actual = expected.clone();
+				scalar.blend(lut, indices, src, expected, dst, length);
+				vector.blend(lut, indices, src, actual, dst, length);
+				assertArrayEquals("length " + length + ", " + transparent + "% transparent", expected, actual);
+			}
+		}
+	}
+}
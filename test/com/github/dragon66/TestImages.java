@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * TestImages.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Images shared by the tests: images/comederos.gif and generated images covering every
+ * disposal method, global and local color tables, interlaced or not, together with their
+ * composited frames as read by {@link AnimatedGIFReader#read(java.io.InputStream)}.
+ */
+final class TestImages {
+	static final List<String> NAMES;
+	static final List<byte[]> IMAGES;
+	// Composited frames of each image as read by AnimatedGIFReader
+	static final List<List<int[]>> FRAMES;
+
+	static {
+		List<String> names = new ArrayList<String>();
+		List<byte[]> images = new ArrayList<byte[]>();
+		try {
+			names.add("comederos.gif");
+			images.add(Files.readAllBytes(Paths.get("images", "comederos.gif")));
+		} catch(Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+		names.add("corpus 0");
+		images.add(GIFCorpus.generate(120, 90, 8, false, true, 0));
+		names.add("corpus 1");
+		images.add(GIFCorpus.generate(97, 61, 8, true, false, 1));
+		names.add("corpus 2");
+		images.add(GIFCorpus.generate(120, 90, 8, false, false, 2));
+		names.add("corpus 3");
+		images.add(GIFCorpus.generate(83, 101, 8, true, true, 3));
+		List<List<int[]>> frames = new ArrayList<List<int[]>>();
+		for(byte[] gif : images)
+			frames.add(composite(gif));
+		NAMES = Collections.unmodifiableList(names);
+		IMAGES = Collections.unmodifiableList(images);
+		FRAMES = Collections.unmodifiableList(frames);
+	}
+
+	private TestImages() {}
+
+	static int[] argb(BufferedImage image) {
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+
+	static void assertFrames(String name, List<int[]> expected, List<int[]> actual) {
+		assertEquals(name + " frame count", expected.size(), actual.size());
+		for(int i = 0; i < expected.size(); i++)
+			assertArrayEquals(name + " frame " + i, expected.get(i), actual.get(i));
+	}
+
+	// Composited frames as read by AnimatedGIFReader
+	static List<int[]> composite(byte[] gif) {
+		try {
+			AnimatedGIFReader reader = new AnimatedGIFReader();
+			reader.read(new ByteArrayInputStream(gif));
+			List<int[]> frames = new ArrayList<int[]>();
+			for(BufferedImage frame : reader.getFrames())
+				frames.add(argb(frame));
+			return frames;
+		} catch(Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+}
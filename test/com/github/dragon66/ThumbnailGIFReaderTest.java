@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2014-2016 by Wen Yu.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Any modifications to this file must keep this entire header intact.
+ *
+ * Change History - most recent changes go on top of previous changes
+ *
+ * ThumbnailGIFReaderTest.java
+ *
+ * Who   Date       Description
+ * ====  =========  ====================================================
+ * AG    16Oct2026  Initial creation
+ */
+
+package com.github.dragon66;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.dragon66.AnimatedGIFReader.GIFFrame;
+
+public class ThumbnailGIFReaderTest {
+	// Checks the frames read keep one pixel out of subsampling of the composited frames
+	static void assertSubsampled(String name, List<int[]> expected, ThumbnailGIFReader reader) {
+		int subsampling = reader.getSubsampling();
+		Rectangle region = reader.getSourceRegion();
+		assertEquals(name, expected.size(), reader.getFrameCount());
+		for(int i = 0; i < expected.size(); i++) {
+			BufferedImage frame = reader.getFrame(i);
+			assertEquals(name, reader.getWidth(), frame.getWidth());
+			assertEquals(name, reader.getHeight(), frame.getHeight());
+			int[] full = expected.get(i);
+			for(int y = 0; y < frame.getHeight(); y++)
+				for(int x = 0; x < frame.getWidth(); x++)
+					assertEquals(name + " frame " + i + " at " + x + "," + y,
+							full[(region.y + subsampling*y)*reader.getLogicalScreenWidth() + region.x + subsampling*x], frame.getRGB(x, y));
+		}
+	}
+
+	@Test
+	public void fullSize() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			ThumbnailGIFReader reader = new ThumbnailGIFReader();
+			reader.read(GIFSource.wrap(TestImages.IMAGES.get(n)));
+			List<int[]> frames = new ArrayList<int[]>();
+			for(GIFFrame frame : reader.getGIFFrames())
+				frames.add(TestImages.argb(frame.getFrame()));
+			TestImages.assertFrames(TestImages.NAMES.get(n), TestImages.FRAMES.get(n), frames);
+		}
+	}
+
+	@Test
+	public void subsampled() throws Exception {
+		for(int subsampling = 2; subsampling <= 5; subsampling++) {
+			for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+				ThumbnailGIFReader reader = new ThumbnailGIFReader();
+				reader.setSubsampling(subsampling);
+				reader.read(GIFSource.wrap(TestImages.IMAGES.get(n)));
+				assertSubsampled(TestImages.NAMES.get(n) + " subsampling " + subsampling, TestImages.FRAMES.get(n), reader);
+			}
+		}
+	}
+
+	@Test
+	public void targetSize() throws Exception {
+		for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+			ThumbnailGIFReader reader = new ThumbnailGIFReader();
+			reader.setTargetSize(32, 24);
+			reader.read(GIFSource.wrap(TestImages.IMAGES.get(n)));
+			String name = TestImages.NAMES.get(n);
+			// The largest factor which keeps the frames at least as large as the target
+			assertTrue(name, reader.getWidth() >= 32 && reader.getHeight() >= 24);
+			int subsampling = reader.getSubsampling() + 1;
+			int width = (reader.getLogicalScreenWidth() + subsampling - 1)/subsampling;
+			int height = (reader.getLogicalScreenHeight() + subsampling - 1)/subsampling;
+			assertTrue(name, width < 32 || height < 24);
+			assertSubsampled(name, TestImages.FRAMES.get(n), reader);
+		}
+	}
+
+	@Test
+	public void sourceRegion() throws Exception {
+		// Inside the logical screen, a single pixel and partly outside of it
+		Rectangle[] regions = {new Rectangle(5, 7, 50, 40), new Rectangle(30, 20, 1, 1), new Rectangle(-10, 60, 200, 100)};
+		for(Rectangle sourceRegion : regions) {
+			for(int subsampling = 1; subsampling <= 3; subsampling += 2) {
+				for(int n = 0; n < TestImages.IMAGES.size(); n++) {
+					ThumbnailGIFReader reader = new ThumbnailGIFReader();
+					reader.setSubsampling(subsampling);
+					reader.setSourceRegion(sourceRegion);
+					reader.read(GIFSource.wrap(TestImages.IMAGES.get(n)));
+					Rectangle region = reader.getSourceRegion();
+					assertEquals(new Rectangle(0, 0, reader.getLogicalScreenWidth(), reader.getLogicalScreenHeight()).intersection(sourceRegion), region);
+					assertSubsampled(TestImages.NAMES.get(n) + " " + sourceRegion + " subsampling " + subsampling, TestImages.FRAMES.get(n), reader);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void sourceRegionOutsideScreen() throws Exception {
+		ThumbnailGIFReader reader = new ThumbnailGIFReader();
+		reader.setSourceRegion(new Rectangle(1000, 1000, 10, 10));
+		reader.read(GIFSource.wrap(TestImages.IMAGES.get(1)));
+	}
+
+	@Test
+	public void notRead() throws Exception {
+		ThumbnailGIFReader reader = new ThumbnailGIFReader();
+		assertNull(reader.getFrame(0));
+		assertNull(reader.getGIFFrame(0));
+		reader.read(GIFSource.wrap(TestImages.IMAGES.get(1)));
+		assertNull(reader.read(GIFSource.wrap("Not a GIF image at all".getBytes())));
+		assertEquals(0, reader.getFrameCount());
+		assertNull(reader.getFrame(0));
+	}
+}